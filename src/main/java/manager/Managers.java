@@ -2,16 +2,32 @@ package manager;
 
 import manager.api.HistoryManager;
 import manager.api.TaskManager;
+import manager.api.TimeTable;
+import manager.impl.BufferedHistoryManager;
 import manager.impl.InMemoryHistoryManager;
 import manager.impl.InMemoryTaskManager;
 
+import java.util.function.Supplier;
+
 public class Managers {
     public static TaskManager getDefault() {
         return new InMemoryTaskManager();
     }
 
+    public static TaskManager getDefault(Supplier<TimeTable> timeTableFactory) {
+        return new InMemoryTaskManager(timeTableFactory);
+    }
+
     public static HistoryManager getDefaultHistory() {
         return new InMemoryHistoryManager();
     }
+
+    public static HistoryManager getDefaultHistory(int capacity) {
+        return new InMemoryHistoryManager(capacity);
+    }
+
+    public static HistoryManager getBufferedHistory() {
+        return new BufferedHistoryManager();
+    }
 }
 
@@ -0,0 +1,14 @@
+package manager.api;
+
+import task.Task;
+
+/**
+ * Запись истории просмотров. Номер просмотра растёт с каждым просмотром и не меняется, пока задачу не посмотрят
+ * снова, поэтому служит курсором страниц истории: повторный просмотр, вытеснение или удаление задачи
+ * не сдвигают следующие страницы.
+ *
+ * @param task       - просмотренная задача.
+ * @param viewNumber - номер просмотра.
+ */
+public record HistoryEntry(Task task, long viewNumber) {
+}
@@ -2,6 +2,8 @@ package manager.api;
 
 import task.Task;
 
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 
 public interface HistoryManager {
@@ -9,6 +11,22 @@ public interface HistoryManager {
 
     void remove(long id);
 
+    void removeAll(Collection<Long> ids);
+
     List<Task> getHistory();
 
+    int size();
+
+    List<Task> getHistory(int offset, int limit);
+
+    List<HistoryEntry> getHistoryBefore(long viewNumber, int limit);
+
+    Iterator<Task> descendingIterator();
+
+    /**
+     * Освобождает ресурсы истории, например останавливает фоновый поток. По умолчанию ничего не делает.
+     */
+    default void close() {
+    }
+
 }
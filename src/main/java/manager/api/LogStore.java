@@ -0,0 +1,9 @@
+package manager.api;
+
+public interface LogStore {
+    void append(String records);
+
+    void rewrite(String records);
+
+    String read();
+}
@@ -4,11 +4,27 @@ import task.EpicTask;
 import task.SubTask;
 import task.Task;
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 
 public interface TaskManager {
     List<Task> getOrderedTasksByStartTime();
 
+    List<Task> getOrderedTasksByStartTime(LocalDateTime from, LocalDateTime to);
+
+    List<Task> getTasksBetween(LocalDateTime from, LocalDateTime to);
+
+    List<Task> getTasksAfter(LocalDateTime startTime, long id, int limit);
+
+    List<Task> getTasksBefore(LocalDateTime startTime, long id, int limit);
+
+    List<Task> getUpcoming(LocalDateTime now, int k);
+
+    List<LocalDateTime> getFreeSlots(LocalDateTime after, long duration, int limit, String assignee);
+
+    Map<LocalDateTime, Long> getUtilization(LocalDateTime from, LocalDateTime to, ChronoUnit bucket, String assignee);
+
     Map<Long, EpicTask> getEpicTasks();
 
     void setEpicTasks(Map<Long, EpicTask> epicTasks);
@@ -41,6 +57,8 @@ public interface TaskManager {
 
     void addNewSubTask(SubTask subTask);
 
+    List<Task> addNewTasks(List<? extends Task> newTasks);
+
     void updateTask(Task updatedTask);
 
     void updateSubTask(SubTask updatedTask);
@@ -0,0 +1,24 @@
+package manager.api;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface TimeTable {
+    boolean isFree(long start, long end);
+
+    List<Long> findOverlaps(long start, long end);
+
+    List<Long> findFreeWindows(long after, long duration, int limit);
+
+    long getOccupiedMinutes(long from, long to);
+
+    void add(long start, long end, long taskId);
+
+    void remove(long start, long end, long taskId);
+
+    void removeAll(Collection<Long> taskIds);
+
+    void clear();
+
+    int size();
+}
@@ -0,0 +1,272 @@
+package manager.impl;
+
+import manager.api.HistoryEntry;
+import manager.api.HistoryManager;
+import task.Task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * История просмотров, которую можно пополнять из нескольких потоков без блокировок.
+ * Просмотры и удаления публикуются в кольцевой буфер, один поток-потребитель пачками применяет их
+ * к InMemoryHistoryManager под монитором history. Без событий потребитель спит, пока его не разбудит производитель.
+ * Неизменяемый снимок истории строится при чтении, только если с прошлого снимка были применены новые события,
+ * поэтому просмотр не копирует историю. flush дожидается применения всех уже опубликованных событий.
+ */
+public class BufferedHistoryManager implements HistoryManager, AutoCloseable {
+    public static final int DEFAULT_BUFFER_SIZE = 1024;
+    private final InMemoryHistoryManager history;
+    private final Object[] events;
+    /**
+     * Для ячейки i хранит номер события, которое можно в неё записать, а после записи - этот номер плюс один.
+     */
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final Thread consumer;
+    private volatile long applied;
+    private volatile boolean idle;
+    private volatile boolean closed;
+    private volatile Snapshot snapshot = new Snapshot(List.of(), new long[0], 0);
+
+    public BufferedHistoryManager() {
+        this(InMemoryHistoryManager.DEFAULT_CAPACITY, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param capacity   - наибольшее число задач в истории.
+     * @param bufferSize - число событий, которые могут ждать применения. Округляется вверх до степени двойки.
+     */
+    public BufferedHistoryManager(int capacity, int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new RuntimeException("Buffer size must be positive");
+        }
+        history = new InMemoryHistoryManager(capacity);
+        int size = Integer.highestOneBit(bufferSize - 1) << 1;
+        events = new Object[Math.max(size, 1)];
+        mask = events.length - 1;
+        sequences = new AtomicLongArray(events.length);
+        for (int i = 0; i < events.length; i++) {
+            sequences.set(i, i);
+        }
+        consumer = new Thread(this::consume, "history-consumer");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    @Override
+    public void add(Task task) {
+        if (task != null) {
+            publish(task);
+        }
+    }
+
+    @Override
+    public void remove(long id) {
+        publish(new Removal(List.of(id)));
+    }
+
+    @Override
+    public void removeAll(Collection<Long> ids) {
+        if (!ids.isEmpty()) {
+            publish(new Removal(List.copyOf(ids)));
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return currentSnapshot().tasks();
+    }
+
+    @Override
+    public int size() {
+        return currentSnapshot().tasks().size();
+    }
+
+    /**
+     * Страница последнего опубликованного снимка от последних просмотров к ранним.
+     */
+    @Override
+    public List<Task> getHistory(int offset, int limit) {
+        InMemoryHistoryManager.checkPage(offset, limit);
+        List<Task> history = currentSnapshot().tasks();
+        int end = history.size() - offset;
+        int from = Math.max(0, end - limit);
+        if (from >= end) {
+            return List.of();
+        }
+        List<Task> page = new ArrayList<>(history.subList(from, end));
+        Collections.reverse(page);
+        return page;
+    }
+
+    /**
+     * Номера просмотров в снимке возрастают, поэтому начало страницы находится двоичным поиском, O(log n + limit).
+     */
+    @Override
+    public List<HistoryEntry> getHistoryBefore(long viewNumber, int limit) {
+        InMemoryHistoryManager.checkPage(0, limit);
+        Snapshot history = currentSnapshot();
+        int position = Arrays.binarySearch(history.viewNumbers(), viewNumber);
+        int end = position >= 0 ? position : -position - 1;
+        List<HistoryEntry> page = new ArrayList<>(Math.min(limit, end));
+        for (int i = end - 1; i >= 0 && page.size() < limit; i--) {
+            page.add(new HistoryEntry(history.tasks().get(i), history.viewNumbers()[i]));
+        }
+        return page;
+    }
+
+    @Override
+    public Iterator<Task> descendingIterator() {
+        List<Task> history = currentSnapshot().tasks();
+        ListIterator<Task> iterator = history.listIterator(history.size());
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasPrevious();
+            }
+
+            @Override
+            public Task next() {
+                return iterator.previous();
+            }
+        };
+    }
+
+    /**
+     * Дожидается, пока потребитель применит все события, опубликованные до вызова.
+     */
+    public void flush() {
+        long target = tail.get();
+        while (applied < target) {
+            if (closed) {
+                throw new RuntimeException("History is closed");
+            }
+            wakeConsumer();
+            LockSupport.parkNanos(10_000);
+        }
+    }
+
+    /**
+     * Применяет оставшиеся события и останавливает поток-потребитель.
+     */
+    @Override
+    public void close() {
+        flush();
+        closed = true;
+        LockSupport.unpark(consumer);
+    }
+
+    /**
+     * Возвращает снимок истории на момент последней применённой пачки. Новый снимок строится под монитором history,
+     * только если после прошлого снимка потребитель применил новые события.
+     */
+    private Snapshot currentSnapshot() {
+        Snapshot current = snapshot;
+        if (current.applied() == applied) {
+            return current;
+        }
+        synchronized (history) {
+            current = snapshot;
+            if (current.applied() != applied) {
+                current = new Snapshot(Collections.unmodifiableList(history.getHistory()), history.getViewNumbers(),
+                        applied);
+                snapshot = current;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Номер события выдаётся атомарным инкрементом, поэтому производители не повторяют попытки.
+     * Если буфер заполнен, производитель ждёт, пока потребитель освободит его ячейку.
+     */
+    private void publish(Object event) {
+        if (closed) {
+            throw new RuntimeException("History is closed");
+        }
+        long position = tail.getAndIncrement();
+        int index = (int) position & mask;
+        while (sequences.get(index) != position) {
+            wakeConsumer();
+            Thread.onSpinWait();
+        }
+        events[index] = event;
+        sequences.set(index, position + 1);
+        if (idle) {
+            wakeConsumer();
+        }
+    }
+
+    private void wakeConsumer() {
+        idle = false;
+        LockSupport.unpark(consumer);
+    }
+
+    /**
+     * Перед сном потребитель выставляет idle и ещё раз проверяет следующее событие, а производитель после публикации
+     * проверяет idle, поэтому опубликованное событие не останется неприменённым.
+     */
+    private void consume() {
+        long head = 0;
+        while (!closed) {
+            if (!isPublished(head)) {
+                idle = true;
+                if (!isPublished(head) && !closed) {
+                    LockSupport.park(this);
+                }
+                idle = false;
+                continue;
+            }
+            synchronized (history) {
+                long batchEnd = head + events.length;
+                while (head < batchEnd && apply(head)) {
+                    head++;
+                }
+                applied = head;
+            }
+        }
+    }
+
+    private boolean isPublished(long position) {
+        return sequences.get((int) position & mask) == position + 1;
+    }
+
+    /**
+     * @return - false, если событие с номером position ещё не опубликовано.
+     */
+    private boolean apply(long position) {
+        if (!isPublished(position)) {
+            return false;
+        }
+        int index = (int) position & mask;
+        Object event = events[index];
+        events[index] = null;
+        sequences.set(index, position + events.length);
+        if (event instanceof Task task) {
+            history.add(task);
+        } else {
+            history.removeAll(((Removal) event).ids());
+        }
+        return true;
+    }
+
+    private record Removal(List<Long> ids) {
+    }
+
+    /**
+     * @param viewNumbers - номера просмотров задач из tasks в том же порядке.
+     * @param applied     - число событий, применённых к истории на момент снимка.
+     */
+    private record Snapshot(List<Task> tasks, long[] viewNumbers, long applied) {
+    }
+}
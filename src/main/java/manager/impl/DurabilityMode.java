@@ -0,0 +1,7 @@
+package manager.impl;
+
+public enum DurabilityMode {
+    SYNC,
+    GROUP_COMMIT,
+    ASYNC
+}
@@ -0,0 +1,77 @@
+package manager.impl;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Правило записи журнала изменений на диск.
+ * SYNC: каждое изменение записывается и сбрасывается на диск (fsync) до возврата из изменяющего метода.
+ * GROUP_COMMIT: изменения копятся не дольше maxDelay или до maxBatch изменений и записываются на диск одной записью
+ * с одним fsync. Изменяющий метод FileBackedTasksManager возвращается, не дожидаясь fsync, поэтому изменения
+ * одного потока тоже собираются в пачку. Перед подтверждением изменений клиенту вызывается
+ * FileBackedTasksManager.awaitDurable: он ждёт пачку с последним изменением, а не выполняет свой fsync.
+ * При maxDelay = 0 пачку составляют изменения, пришедшие, пока записывалась предыдущая: без нагрузки изменение
+ * записывается сразу, под нагрузкой изменения делят один fsync без искусственной задержки.
+ * ASYNC: изменения копятся так же, но awaitDurable не ждёт записи, при сбое теряются изменения последних maxDelay.
+ * В обоих режимах накапливается не больше maxBatch изменений, дальше изменяющий метод ждёт записи предыдущей пачки.
+ */
+public class DurabilityPolicy {
+    private final DurabilityMode mode;
+    private final Duration maxDelay;
+    private final int maxBatch;
+
+    public DurabilityPolicy(DurabilityMode mode, Duration maxDelay, int maxBatch) {
+        if (mode == null || maxDelay == null || maxDelay.isNegative() || maxBatch <= 0) {
+            throw new RuntimeException("Not valid durability policy parameters");
+        }
+        this.mode = mode;
+        this.maxDelay = maxDelay;
+        this.maxBatch = maxBatch;
+    }
+
+    public static DurabilityPolicy sync() {
+        return new DurabilityPolicy(DurabilityMode.SYNC, Duration.ZERO, 1);
+    }
+
+    public static DurabilityPolicy groupCommit(Duration maxDelay, int maxBatch) {
+        return new DurabilityPolicy(DurabilityMode.GROUP_COMMIT, maxDelay, maxBatch);
+    }
+
+    public static DurabilityPolicy async(Duration maxDelay, int maxBatch) {
+        return new DurabilityPolicy(DurabilityMode.ASYNC, maxDelay, maxBatch);
+    }
+
+    public DurabilityMode getMode() {
+        return mode;
+    }
+
+    public Duration getMaxDelay() {
+        return maxDelay;
+    }
+
+    public int getMaxBatch() {
+        return maxBatch;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        DurabilityPolicy that = (DurabilityPolicy) o;
+        return maxBatch == that.maxBatch && mode == that.mode && Objects.equals(maxDelay, that.maxDelay);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(mode, maxDelay, maxBatch);
+    }
+
+    @Override
+    public String toString() {
+        return "DurabilityPolicy{" +
+                "mode=" + mode +
+                ", maxDelay=" + maxDelay +
+                ", maxBatch=" + maxBatch +
+                '}';
+    }
+}
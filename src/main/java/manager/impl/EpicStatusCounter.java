@@ -0,0 +1,49 @@
+package manager.impl;
+
+import task.TaskStatus;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Количество подзадач эпика в каждом статусе. Вложенные эпики учитываются как подзадачи со своим итоговым статусом.
+ * Для каждой подзадачи запоминается учтённый статус, поэтому изменение статуса учитывается за O(1),
+ * даже если подзадачу изменили на месте.
+ */
+class EpicStatusCounter {
+    private final Map<Long, TaskStatus> statuses = new HashMap<>();
+    private final int[] counts = new int[TaskStatus.values().length];
+
+    void put(long subTaskId, TaskStatus status) {
+        TaskStatus oldStatus = statuses.put(subTaskId, status);
+        if (oldStatus != null) {
+            counts[oldStatus.ordinal()]--;
+        }
+        counts[status.ordinal()]++;
+    }
+
+    void remove(long subTaskId) {
+        TaskStatus oldStatus = statuses.remove(subTaskId);
+        if (oldStatus != null) {
+            counts[oldStatus.ordinal()]--;
+        }
+    }
+
+    int size() {
+        return statuses.size();
+    }
+
+    /**
+     * @return - NEW, если нет подзадач или все подзадачи NEW, DONE, если все подзадачи DONE, иначе IN_PROGRESS.
+     */
+    TaskStatus getStatus() {
+        int newCount = counts[TaskStatus.NEW.ordinal()];
+        int doneCount = counts[TaskStatus.DONE.ordinal()];
+        if (newCount == statuses.size()) {
+            return TaskStatus.NEW;
+        } else if (doneCount == statuses.size()) {
+            return TaskStatus.DONE;
+        }
+        return TaskStatus.IN_PROGRESS;
+    }
+}
@@ -0,0 +1,65 @@
+package manager.impl;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Границы подзадач эпика во времени в минутах от начала эпохи. Начала и концы подзадач хранятся
+ * в упорядоченных мультимножествах, поэтому начало и конец эпика известны за O(log n) после любого изменения.
+ * Вложенный эпик учитывается как подзадача с интервалом от своего начала до своего конца.
+ */
+class EpicTimeBounds {
+    private static final long NO_TIME = Long.MIN_VALUE;
+    private final Map<Long, long[]> intervals = new HashMap<>();
+    private final TreeMap<Long, Integer> starts = new TreeMap<>();
+    private final TreeMap<Long, Integer> ends = new TreeMap<>();
+
+    /**
+     * @param start - начало подзадачи или Long.MIN_VALUE, если у подзадачи нет startTime.
+     */
+    void put(long subTaskId, long start, long end) {
+        remove(subTaskId);
+        if (start == NO_TIME) {
+            intervals.put(subTaskId, null);
+            return;
+        }
+        intervals.put(subTaskId, new long[]{start, end});
+        starts.merge(start, 1, Integer::sum);
+        ends.merge(end, 1, Integer::sum);
+    }
+
+    void remove(long subTaskId) {
+        long[] interval = intervals.remove(subTaskId);
+        if (interval != null) {
+            decrement(starts, interval[0]);
+            decrement(ends, interval[1]);
+        }
+    }
+
+    /**
+     * @return - число учтённых подзадач, включая подзадачи без startTime.
+     */
+    int size() {
+        return intervals.size();
+    }
+
+    /**
+     * @return - true, если ни у одной подзадачи нет startTime.
+     */
+    boolean isEmpty() {
+        return starts.isEmpty();
+    }
+
+    long getStart() {
+        return starts.firstKey();
+    }
+
+    long getEnd() {
+        return ends.lastKey();
+    }
+
+    private static void decrement(TreeMap<Long, Integer> values, long value) {
+        values.computeIfPresent(value, (key, count) -> count == 1 ? null : count - 1);
+    }
+}
@@ -1,81 +1,349 @@
 package manager.impl;
 
+import manager.api.TimeTable;
 import task.EpicTask;
 import task.SubTask;
 import task.Task;
+import task.TaskStatus;
+import task.TaskType;
 import utils.CSVMapper;
 
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 public class FileBackedTasksManager extends InMemoryTaskManager {
+    public static final String HISTORY_LOG_SUFFIX = ".history";
+    public static final String JOURNAL_SUFFIX = ".journal";
+    public static final int COMPACTION_THRESHOLD = 10_000;
+    public static final Duration COMPACTION_INTERVAL = Duration.ofSeconds(30);
+    private static final String UPSERT = "U";
+    private static final String DELETE = "D";
+    private static final String CLEAR = "C";
     private String pathToFile;
+    protected final LoggedHistoryManager historyLog;
+    private final StorageMode storageMode;
+    private final DurabilityPolicy durabilityPolicy;
+    private final Supplier<TimeTable> timeTableFactory;
+    /**
+     * Дописывание в журнал изменений, запись файла и усечение журнала выполняются под этим монитором.
+     */
+    private final Object journalLock = new Object();
+    private GroupCommitLog journal;
+    /**
+     * Номер последнего изменения этого менеджера в journal, его ждёт awaitDurable.
+     */
+    private long lastTicket;
+    private long journalChars;
+    private volatile int journalRecords;
+    private long snapshotVersion;
+    private boolean journalSynced;
+    private ScheduledExecutorService compactor;
 
     public FileBackedTasksManager(String pathToFile)  {
+        this(pathToFile, IntervalTimeTable::new);
+    }
+
+    public FileBackedTasksManager(String pathToFile, Supplier<TimeTable> timeTableFactory) {
+        this(pathToFile, timeTableFactory, StorageMode.SNAPSHOT);
+    }
+
+    /**
+     * @param storageMode - SNAPSHOT: каждое изменение перезаписывает файл целиком.
+     *                    JOURNAL: каждое изменение дописывает запись в журнал pathToFile + JOURNAL_SUFFIX,
+     *                    фоновый поток раз в COMPACTION_INTERVAL переносит журнал в файл, если в нём
+     *                    не меньше COMPACTION_THRESHOLD записей. Поток запускается при первой записи в журнал
+     *                    и останавливается в close, поэтому менеджер в режиме JOURNAL нужно закрыть.
+     */
+    public FileBackedTasksManager(String pathToFile, Supplier<TimeTable> timeTableFactory, StorageMode storageMode) {
+        this(pathToFile, timeTableFactory, storageMode, DurabilityPolicy.sync());
+    }
+
+    /**
+     * @param durabilityPolicy - когда изменения попадают на диск. Файл при записи целиком всегда сбрасывается
+     *                         на диск до замены прежнего. GROUP_COMMIT и ASYNC копят записи журнала изменений,
+     *                         поэтому допустимы только в режиме JOURNAL.
+     */
+    public FileBackedTasksManager(String pathToFile, Supplier<TimeTable> timeTableFactory, StorageMode storageMode,
+                                  DurabilityPolicy durabilityPolicy) {
+        super(timeTableFactory);
+        if (storageMode == StorageMode.SNAPSHOT && durabilityPolicy.getMode() != DurabilityMode.SYNC) {
+            throw new RuntimeException("Durability policy " + durabilityPolicy.getMode() + " requires JOURNAL storage mode");
+        }
         this.pathToFile = pathToFile;
+        this.timeTableFactory = timeTableFactory;
+        this.storageMode = storageMode;
+        this.durabilityPolicy = durabilityPolicy;
+        historyLog = new LoggedHistoryManager(historyManager, new FileLogStore(Path.of(pathToFile + HISTORY_LOG_SUFFIX)));
+        historyManager = historyLog;
+        if (storageMode == StorageMode.JOURNAL) {
+            journal = new GroupCommitLog(Path.of(pathToFile + JOURNAL_SUFFIX), durabilityPolicy);
+        }
     }
 
+    /**
+     * Меняет файл менеджера, журналы истории и изменений переезжают в файлы рядом с ним.
+     * В режиме JOURNAL накопленные записи дописываются в прежний журнал, следующее изменение запишет новый файл целиком.
+     */
     public void setPathToFile(String pathToFile) {
         if (pathToFile != null) {
             this.pathToFile = pathToFile;
+            historyLog.setLog(new FileLogStore(Path.of(pathToFile + HISTORY_LOG_SUFFIX)));
+            if (storageMode == StorageMode.JOURNAL) {
+                synchronized (journalLock) {
+                    journal.close();
+                    journal = new GroupCommitLog(Path.of(pathToFile + JOURNAL_SUFFIX), durabilityPolicy);
+                    lastTicket = 0;
+                    journalSynced = false;
+                }
+            }
         }
     }
 
+    public StorageMode getStorageMode() {
+        return storageMode;
+    }
+
+    public DurabilityPolicy getDurabilityPolicy() {
+        return durabilityPolicy;
+    }
+
     public String getPathToFile() {
         return pathToFile;
     }
 
     /**
      * Восстанавливает данные менеджера из файла при запуске программы.
+     * История восстанавливается из журнала рядом с файлом. Если в файле есть строка истории в прежнем формате,
+     * история берётся из неё и записывается в журнал. В режиме JOURNAL поверх файла проигрывается журнал изменений.
+     * Восстановленный менеджер работает в том же режиме и с тем же правилом записи, что и этот.
+     * Накопленные записи журнала этого менеджера перед чтением записываются на диск. Если в режиме JOURNAL
+     * восстанавливается файл этого же менеджера, этот менеджер закрывается: у журнала может быть только
+     * один писатель, дальше изменения нужно вносить через восстановленный менеджер.
      *
      * @param file содержащий данные для восстановления.
      * @return восстановленный из файла объект FileBackedTasksManager.
      */
     public FileBackedTasksManager loadFromFile(File file) {
-        FileBackedTasksManager fBTManager = new FileBackedTasksManager(file.getPath());
+        if (journal != null && Path.of(pathToFile).toAbsolutePath().normalize()
+                .equals(file.toPath().toAbsolutePath().normalize())) {
+            close();
+        } else {
+            flush();
+        }
+        FileBackedTasksManager fBTManager = new FileBackedTasksManager(file.getPath(), timeTableFactory, storageMode,
+                durabilityPolicy);
         List<String> list = CSVMapper.getLinesFromFile(fBTManager.getPathToFile());
         List<Long> historyList = CSVMapper.historyFromString(list);
 
         fBTManager.restoreTasksByType(list);
         fBTManager.setNewIdValue(fBTManager.getEpicTasks(), fBTManager.getSubTasks(), fBTManager.getTasks());
         combineEpicAndSubTasks(fBTManager.getEpicTasks(), fBTManager.getSubTasks());
-        restoreHistory(historyList, fBTManager);
+        if (historyList.isEmpty()) {
+            fBTManager.historyLog.restore(fBTManager::findTask);
+        } else {
+            restoreHistory(historyList, fBTManager);
+        }
 
         return fBTManager;
     }
 
     /**
-     * Сохраняет текущее состояние менеджера в файл указанный в поле pathToFile. Вызывается в модифицирующих методах.
-     * В методах getById, getByIdEpicTask, getByIdSubTask после их вызова в main.
-     * Первая строка содержит название столбцов, предпоследняя пустая, последняя историю просмотров задач.
+     * Сохраняет текущее состояние менеджера в файл указанный в поле pathToFile. Вызывается в модифицирующих методах
+     * в режиме SNAPSHOT, в режиме JOURNAL записывает файл целиком и очищает журнал изменений.
+     * Первая строка содержит название столбцов, предпоследняя пустая, последняя оставлена для истории просмотров
+     * и пуста: история дописывается в журнал pathToFile + HISTORY_LOG_SUFFIX при каждом просмотре.
      */
     public void save() {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(pathToFile))) {
-            writer.write("id,type,name,status,description,duration,start_Time,epic\n");
-            Map<Long, ? extends Task> tasks = getTasks();
-            for (Long id : tasks.keySet()) {
-                String taskInString = CSVMapper.taskToString(tasks.get(id));
-                writer.write(taskInString + "\n");
-            }
-            tasks = getEpicTasks();
-            for (Long id : tasks.keySet()) {
-                String taskInString = CSVMapper.taskToString(tasks.get(id));
-                writer.write(taskInString + "\n");
-            }
-            tasks = getSubTasks();
-            for (Long id : tasks.keySet()) {
-                String taskInString = CSVMapper.taskToString(tasks.get(id));
-                writer.write(taskInString + "\n");
-            }
-            writer.write("\n" + CSVMapper.getHistoryToString(historyManager.getHistory()));
+        if (journal == null) {
+            writeSnapshot(Path.of(pathToFile), getTasks().values(), getEpicTasks().values(), getSubTasks().values());
+            return;
+        }
+        synchronized (journalLock) {
+            writeSnapshot(Path.of(pathToFile), getTasks().values(), getEpicTasks().values(), getSubTasks().values());
+            journal.rewrite("");
+            journalChars = 0;
+            journalRecords = 0;
+            snapshotVersion++;
+            journalSynced = true;
+        }
+    }
+
+    /**
+     * Переносит записи журнала изменений в файл, не обращаясь к задачам в памяти: читает файл, проигрывает
+     * на нём записи журнала, накопленные к началу сжатия, записывает новый файл и удаляет из журнала
+     * перенесённые записи. Новые изменения во время сжатия продолжают дописываться в журнал.
+     * Если во время сжатия был вызван save, результат сжатия отбрасывается.
+     * Записи журнала идемпотентны, поэтому сбой между записью файла и усечением журнала не портит данные.
+     */
+    public void compactJournal() {
+        if (journal == null) {
+            return;
+        }
+        GroupCommitLog store;
+        long foldedChars;
+        int foldedRecords;
+        long version;
+        synchronized (journalLock) {
+            if (!journalSynced || journalRecords == 0) {
+                return;
+            }
+            store = journal;
+            foldedChars = journalChars;
+            foldedRecords = journalRecords;
+            version = snapshotVersion;
+        }
+        Path path = Path.of(pathToFile);
+        Map<Long, Task> tasks = new LinkedHashMap<>();
+        Map<Long, EpicTask> epicTasks = new LinkedHashMap<>();
+        Map<Long, SubTask> subTasks = new LinkedHashMap<>();
+        parseTasks(CSVMapper.getLinesFromFile(path.toString()), tasks, epicTasks, subTasks);
+        applyJournal(store.read().substring(0, (int) foldedChars), tasks, epicTasks, subTasks);
+        Path tempPath = path.resolveSibling(path.getFileName() + ".compact");
+        writeSnapshot(tempPath, tasks.values(), epicTasks.values(), subTasks.values());
+        synchronized (journalLock) {
+            if (store != journal || version != snapshotVersion) {
+                deleteQuietly(tempPath);
+                return;
+            }
+            moveSnapshot(tempPath, path);
+            store.rewrite(store.read().substring((int) foldedChars));
+            journalChars -= foldedChars;
+            journalRecords -= foldedRecords;
+            snapshotVersion++;
+        }
+    }
+
+    /**
+     * Записывает на диск изменения, накопленные журналом по правилу GROUP_COMMIT или ASYNC.
+     */
+    public void flush() {
+        if (journal == null) {
+            return;
+        }
+        synchronized (journalLock) {
+            journal.flush();
+        }
+    }
+
+    /**
+     * Дожидается записи на диск всех изменений, внесённых до вызова. По правилу GROUP_COMMIT сам fsync не вызывает,
+     * а ждёт пачку, в которую попало последнее изменение, поэтому изменения, внесённые между вызовами, делят один fsync.
+     * Вызывается перед подтверждением изменений клиенту. По правилам SYNC и ASYNC возвращается сразу:
+     * в SYNC изменения уже на диске, в ASYNC записать их на диск можно через flush.
+     */
+    public void awaitDurable() {
+        GroupCommitLog store;
+        long ticket;
+        synchronized (journalLock) {
+            if (journal == null || lastTicket == 0) {
+                return;
+            }
+            store = journal;
+            ticket = lastTicket;
+        }
+        store.awaitCommit(ticket);
+    }
+
+    /**
+     * Останавливает фоновое сжатие журнала, записывает накопленные изменения на диск, закрывает журнал
+     * и историю просмотров. После закрытия изменения в режиме JOURNAL бросают ManagerSaveException.
+     * Повторный вызов ничего не делает.
+     */
+    @Override
+    public void close() {
+        if (journal != null) {
+            synchronized (journalLock) {
+                if (compactor != null) {
+                    compactor.shutdownNow();
+                }
+                journal.close();
+            }
+        }
+        super.close();
+    }
+
+    /**
+     * Запускает фоновое сжатие журнала, если оно ещё не запущено. Вызывается под journalLock.
+     */
+    private void startCompactor() {
+        if (compactor != null) {
+            return;
+        }
+        compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "journal-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = COMPACTION_INTERVAL.toMillis();
+        compactor.scheduleWithFixedDelay(this::compactJournalIfNeeded, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private void compactJournalIfNeeded() {
+        try {
+            if (journalRecords >= COMPACTION_THRESHOLD) {
+                compactJournal();
+            }
+        } catch (RuntimeException e) {
+            System.out.println("Journal compaction failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Записывает файл через временный файл, который сбрасывается на диск и атомарно заменяет прежний.
+     */
+    private static void writeSnapshot(Path path, Collection<? extends Task> tasks, Collection<? extends Task> epicTasks,
+                                      Collection<? extends Task> subTasks) {
+        Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             BufferedWriter writer = new BufferedWriter(Channels.newWriter(channel, UTF_8))) {
+            writer.write(CSVMapper.COLUMN_HEADER + "\n");
+            for (Collection<? extends Task> group : List.of(tasks, epicTasks, subTasks)) {
+                for (Task task : group) {
+                    writer.write(CSVMapper.taskToString(task) + "\n");
+                }
+            }
+            writer.write("\n" + CSVMapper.getHistoryToString(List.of()));
+            writer.flush();
+            channel.force(false);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Something is wrong");
+        }
+        moveSnapshot(tempPath, path);
+    }
+
+    private static void moveSnapshot(Path from, Path to) {
+        try {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
         } catch (IOException e) {
             throw new ManagerSaveException("Something is wrong");
         }
     }
 
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            System.out.println("Failed to delete " + path);
+        }
+    }
+
     /**
      * Восстанавливает объекты типа Task из строк типа CSV.
      * В зависимости от типа объекта добавляет объект в поля tasks, epicTasks, subTasks.
@@ -85,29 +353,103 @@ public class FileBackedTasksManager extends InMemoryTaskManager {
      *                     Первый(индекс 0) элемент содержит название столбцов, предпоследний пустой, последний историю просмотров задач.
      */
     public void restoreTasksByType(List<String> tasksInlines) {
-        int countLastEmptyLines = 2;
-        int countColumnNameLines = 1;
         Map<Long, Task> tasks = new HashMap<>();
         Map<Long, EpicTask> epicTasks = new HashMap<>();
         Map<Long, SubTask> subTasks = new HashMap<>();
 
+        parseTasks(tasksInlines, tasks, epicTasks, subTasks);
+        if (journal != null) {
+            synchronized (journalLock) {
+                String records = journal.read();
+                applyJournal(records, tasks, epicTasks, subTasks);
+                journalChars = records.length();
+                journalRecords = (int) records.chars().filter(c -> c == '\n').count();
+                journalSynced = true;
+                if (journalRecords > 0) {
+                    startCompactor();
+                }
+            }
+        }
+        tasks.values().forEach(this::addTaskToTimeTable);
+        epicTasks.values().forEach(this::addTaskToTimeTable);
+        subTasks.values().forEach(this::addTaskToTimeTable);
+        setTasks(tasks);
+        setEpicTasks(epicTasks);
+        setSubTasks(subTasks);
+    }
+
+    /**
+     * Разбирает строки файла без первой и двух последних и раскладывает задачи по типам.
+     */
+    private static void parseTasks(List<String> tasksInlines, Map<Long, Task> tasks, Map<Long, EpicTask> epicTasks,
+                                   Map<Long, SubTask> subTasks) {
+        int countLastEmptyLines = 2;
+        int countColumnNameLines = 1;
         for (int i = countColumnNameLines; i < tasksInlines.size() - countLastEmptyLines; i++) {
             Optional<Task> taskInOpt = CSVMapper.fromString(tasksInlines.get(i));
             if (taskInOpt.isEmpty()) {
                 System.out.println("Object might not find");
             } else {
-                var task = taskInOpt.get();
-                addTaskToTimeTable(task);
-                switch (task.getTaskType()) {
-                    case TASK -> tasks.put(task.getId(), task);
-                    case EPICTASK -> epicTasks.put(task.getId(), (EpicTask) task);
-                    case SUBTASK -> subTasks.put(task.getId(), (SubTask) task);
+                putByType(taskInOpt.get(), tasks, epicTasks, subTasks);
+            }
+        }
+    }
+
+    private static void putByType(Task task, Map<Long, Task> tasks, Map<Long, EpicTask> epicTasks,
+                                  Map<Long, SubTask> subTasks) {
+        switch (task.getTaskType()) {
+            case TASK -> tasks.put(task.getId(), task);
+            case EPICTASK -> epicTasks.put(task.getId(), (EpicTask) task);
+            case SUBTASK -> subTasks.put(task.getId(), (SubTask) task);
+        }
+    }
+
+    /**
+     * Проигрывает записи журнала изменений по одной в строке:
+     * "U,строка задачи в CSV" - задача добавлена или изменена, "D,id" - задача удалена,
+     * "C,тип" - удалены все задачи типа. Удаление всех подзадач, как и в менеджере, сбрасывает статус
+     * и время эпиков, удаление всех эпиков удаляет и подзадачи.
+     */
+    private static void applyJournal(String records, Map<Long, Task> tasks, Map<Long, EpicTask> epicTasks,
+                                     Map<Long, SubTask> subTasks) {
+        for (String record : records.split("\n")) {
+            if (record.isBlank()) {
+                continue;
+            }
+            String[] operation = record.split(",", 2);
+            switch (operation[0]) {
+                case UPSERT -> CSVMapper.fromString(operation[1]).ifPresent(task -> {
+                    removeById(task.getId(), tasks, epicTasks, subTasks);
+                    putByType(task, tasks, epicTasks, subTasks);
+                });
+                case DELETE -> removeById(Long.parseLong(operation[1]), tasks, epicTasks, subTasks);
+                case CLEAR -> {
+                    switch (TaskType.valueOf(operation[1])) {
+                        case TASK -> tasks.clear();
+                        case SUBTASK -> {
+                            subTasks.clear();
+                            for (EpicTask epicTask : epicTasks.values()) {
+                                epicTask.setStatus(TaskStatus.NEW);
+                                epicTask.setStartTime(null);
+                                epicTask.setDuration(0);
+                            }
+                        }
+                        case EPICTASK -> {
+                            epicTasks.clear();
+                            subTasks.clear();
+                        }
+                    }
                 }
+                default -> throw new ManagerSaveException("Not valid journal record " + record);
             }
         }
-        setTasks(tasks);
-        setEpicTasks(epicTasks);
-        setSubTasks(subTasks);
+    }
+
+    private static void removeById(long id, Map<Long, Task> tasks, Map<Long, EpicTask> epicTasks,
+                                   Map<Long, SubTask> subTasks) {
+        tasks.remove(id);
+        epicTasks.remove(id);
+        subTasks.remove(id);
     }
 
     /**
@@ -131,7 +473,7 @@ public class FileBackedTasksManager extends InMemoryTaskManager {
     }
 
     /**
-     * Заполняет поле idSubTask у epicTask. Вызывается после метода restoreTasksByType.
+     * Заполняет поля idSubTask и childEpicsId у epicTask. Вызывается после метода restoreTasksByType.
      *
      * @param epicTasks поле содержащее задачи типа EpicTask.
      * @param subTasks  поле содержащее задачи типа SubTask.
@@ -143,6 +485,11 @@ public class FileBackedTasksManager extends InMemoryTaskManager {
                 epicTasks.get(idEpic).addSubTask(idSubTask);
             }
         }
+        for (EpicTask epicTask : epicTasks.values()) {
+            if (epicTasks.containsKey(epicTask.getIdParentEpic())) {
+                epicTasks.get(epicTask.getIdParentEpic()).addChildEpic(epicTask.getId());
+            }
+        }
     }
 
     /**
@@ -166,78 +513,184 @@ public class FileBackedTasksManager extends InMemoryTaskManager {
     @Override
     public void addNewTask(Task task) {
         super.addNewTask(task);
-        save();
+        saveChanges(records -> upsertIfStored(records, task));
     }
 
     @Override
     public void addNewEpicTask(EpicTask epicTask) {
         super.addNewEpicTask(epicTask);
-        save();
+        saveChanges(records -> upsertIfStored(records, epicTask));
     }
 
     @Override
     public void addNewSubTask(SubTask subTask) {
         super.addNewSubTask(subTask);
-        save();
+        saveChanges(records -> upsertIfStored(records, subTask));
+    }
+
+    @Override
+    public List<Task> addNewTasks(List<? extends Task> newTasks) {
+        List<Task> rejectedTasks = super.addNewTasks(newTasks);
+        saveChanges(records -> newTasks.forEach(task -> upsertIfStored(records, task)));
+        return rejectedTasks;
     }
 
     @Override
     public void updateTask(Task updatedTask) {
         super.updateTask(updatedTask);
-        save();
+        saveChanges(records -> upsertIfStored(records, updatedTask));
     }
 
     @Override
     public void updateSubTask(SubTask updatedTask) {
         super.updateSubTask(updatedTask);
-        save();
+        saveChanges(records -> upsertIfStored(records, updatedTask));
     }
 
     @Override
     public void updateEpicTask(EpicTask updatedTask) {
         super.updateEpicTask(updatedTask);
-        save();
+        saveChanges(records -> upsertIfStored(records, updatedTask));
     }
 
     @Override
     public void checkStatusEpicTask(EpicTask epicTask) {
         super.checkStatusEpicTask(epicTask);
-        save();
+        saveChanges(records -> upsertEpicChain(records, epicTask.getId()));
     }
 
     @Override
     public void deleteByIdTask(long id) {
         super.deleteByIdTask(id);
-        save();
+        saveChanges(records -> delete(records, id));
     }
 
     @Override
     public void deleteByIdSubTask(long id) {
+        SubTask subTask = getSubTasks().get(id);
         super.deleteByIdSubTask(id);
-        save();
+        saveChanges(records -> {
+            delete(records, id);
+            if (subTask != null) {
+                upsertEpicChain(records, subTask.getIdEpicTask());
+            }
+        });
     }
 
+    /**
+     * В режиме JOURNAL до удаления собирает Id эпиков и подзадач поддерева, чтобы записать их удаление.
+     * Записи удаления всего поддерева дописываются в журнал одним вызовом enqueue и одним сбросом на диск.
+     * В режиме SNAPSHOT каскадное удаление, как и любое изменение, перезаписывает файл целиком.
+     */
     @Override
     public void deleteByIdEpicTasks(long id) {
+        EpicTask epicTask = getEpicTasks().get(id);
+        List<Long> removedIds = journal == null || epicTask == null ? List.of() : collectSubtreeIds(epicTask);
         super.deleteByIdEpicTasks(id);
-        save();
+        saveChanges(records -> {
+            removedIds.forEach(removedId -> delete(records, removedId));
+            if (epicTask != null) {
+                upsertEpicChain(records, epicTask.getIdParentEpic());
+            }
+        });
     }
 
     @Override
     public void removeAllTasks() {
         super.removeAllTasks();
-        save();
+        saveChanges(records -> clear(records, TaskType.TASK));
     }
 
     @Override
     public void removeAllSubTasks() {
         super.removeAllSubTasks();
-        save();
+        saveChanges(records -> clear(records, TaskType.SUBTASK));
     }
 
     @Override
     public void removeAllEpicTasks() {
         super.removeAllEpicTasks();
-        save();
+        saveChanges(records -> clear(records, TaskType.EPICTASK));
+    }
+
+    /**
+     * В режиме SNAPSHOT перезаписывает файл, в режиме JOURNAL дописывает в журнал записи об изменённых задачах.
+     * Стоимость записи в режиме JOURNAL зависит только от числа изменённых задач, а не от числа всех задач.
+     * Если журнал ещё не связан с файлом, первое изменение записывает файл целиком.
+     * По правилам GROUP_COMMIT и ASYNC метод возвращается, не дожидаясь fsync: изменения копятся в журнале
+     * и записываются пачкой, дождаться записи можно через awaitDurable.
+     */
+    private void saveChanges(Consumer<StringBuilder> changes) {
+        if (journal == null) {
+            save();
+            return;
+        }
+        StringBuilder records = new StringBuilder();
+        changes.accept(records);
+        if (records.isEmpty()) {
+            return;
+        }
+        synchronized (journalLock) {
+            if (!journalSynced) {
+                save();
+                return;
+            }
+            lastTicket = journal.enqueue(records.toString());
+            journalChars += records.length();
+            journalRecords += (int) records.chars().filter(c -> c == '\n').count();
+            startCompactor();
+        }
+    }
+
+    /**
+     * Записывает задачу, если она хранится в менеджере, а для подзадачи и эпика - ещё и эпики выше по иерархии,
+     * чьи статус и время могли измениться.
+     */
+    private void upsertIfStored(StringBuilder records, Task task) {
+        if (findTask(task.getId()) != task) {
+            return;
+        }
+        switch (task.getTaskType()) {
+            case TASK -> upsert(records, task);
+            case SUBTASK -> {
+                upsert(records, task);
+                upsertEpicChain(records, ((SubTask) task).getIdEpicTask());
+            }
+            case EPICTASK -> upsertEpicChain(records, task.getId());
+        }
+    }
+
+    private void upsertEpicChain(StringBuilder records, long epicId) {
+        EpicTask epicTask = getEpicTasks().get(epicId);
+        while (epicTask != null) {
+            upsert(records, epicTask);
+            epicTask = getEpicTasks().get(epicTask.getIdParentEpic());
+        }
+    }
+
+    private List<Long> collectSubtreeIds(EpicTask root) {
+        List<Long> ids = new ArrayList<>();
+        Deque<EpicTask> epics = new ArrayDeque<>(List.of(root));
+        while (!epics.isEmpty()) {
+            EpicTask epicTask = epics.poll();
+            ids.add(epicTask.getId());
+            ids.addAll(epicTask.getSubTasksId());
+            for (Long childId : epicTask.getChildEpicsId()) {
+                Optional.ofNullable(getEpicTasks().get(childId)).ifPresent(epics::add);
+            }
+        }
+        return ids;
+    }
+
+    private static void upsert(StringBuilder records, Task task) {
+        records.append(UPSERT).append(',').append(CSVMapper.taskToString(task)).append('\n');
+    }
+
+    private static void delete(StringBuilder records, long id) {
+        records.append(DELETE).append(',').append(id).append('\n');
+    }
+
+    private static void clear(StringBuilder records, TaskType type) {
+        records.append(CLEAR).append(',').append(type).append('\n');
     }
 }
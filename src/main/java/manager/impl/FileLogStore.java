@@ -0,0 +1,59 @@
+package manager.impl;
+
+import manager.api.LogStore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Журнал в файле. Записи дописываются в конец файла, перезапись идёт через временный файл,
+ * который атомарно заменяет журнал, поэтому при сбое остаётся либо старый, либо новый журнал целиком.
+ */
+public class FileLogStore implements LogStore {
+    private final Path path;
+
+    public FileLogStore(Path path) {
+        this.path = path;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public void append(String records) {
+        try {
+            Files.writeString(path, records, UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Failed to append to log " + path);
+        }
+    }
+
+    @Override
+    public void rewrite(String records) {
+        Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            Files.writeString(tempPath, records, UTF_8);
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Failed to rewrite log " + path);
+        }
+    }
+
+    /**
+     * @return - содержимое журнала или пустую строку, если файла нет.
+     */
+    @Override
+    public String read() {
+        try {
+            return Files.exists(path) ? Files.readString(path, UTF_8) : "";
+        } catch (IOException e) {
+            throw new ManagerSaveException("Failed to read log " + path);
+        }
+    }
+}
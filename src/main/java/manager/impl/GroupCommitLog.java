@@ -0,0 +1,310 @@
+package manager.impl;
+
+import manager.api.LogStore;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Журнал в файле, который сбрасывает записи на диск (fsync) по правилу DurabilityPolicy.
+ * В режиме SYNC запись и fsync выполняются в вызывающем потоке. В режимах GROUP_COMMIT и ASYNC записи копятся
+ * в памяти, поток "journal-committer", запускаемый первой записью, дописывает накопленное одной записью с одним fsync, когда с первой
+ * накопленной записи прошло maxDelay или накопилось maxBatch записей. Пока идёт fsync, новые записи копятся
+ * для следующей пачки, но не больше maxBatch: дальше вызывающий поток ждёт, пока накопленное не заберёт писатель,
+ * поэтому память под записи ограничена, даже если изменения приходят быстрее, чем их принимает диск.
+ * Ошибка записи запоминается, и все следующие операции журнала бросают ManagerSaveException.
+ */
+public class GroupCommitLog implements LogStore, AutoCloseable {
+    private final Path path;
+    private final DurabilityPolicy policy;
+    private final long maxDelayNanos;
+    /**
+     * Файл журнала пишется и заменяется только под этим монитором.
+     */
+    private final Object ioLock = new Object();
+    /**
+     * Охраняет накопленные записи и счётчики, на нём ждут поток-писатель и вызывающие потоки.
+     * Если нужны оба монитора, ioLock берётся первым.
+     */
+    private final Object lock = new Object();
+    private final StringBuilder pending = new StringBuilder();
+    private int pendingWrites;
+    private long pendingSince;
+    private long enqueued;
+    private long durable;
+    private boolean closed;
+    private ManagerSaveException failure;
+    private FileChannel channel;
+    private Thread committer;
+
+    public GroupCommitLog(Path path, DurabilityPolicy policy) {
+        this.path = path;
+        this.policy = policy;
+        this.maxDelayNanos = policy.getMaxDelay().toNanos();
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public DurabilityPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Дописывает записи и, если этого требует правило, дожидается их записи на диск.
+     */
+    @Override
+    public void append(String records) {
+        awaitCommit(enqueue(records));
+    }
+
+    /**
+     * Передаёт записи журналу, не дожидаясь записи на диск в режимах GROUP_COMMIT и ASYNC.
+     * Порядок записей в файле совпадает с порядком вызовов.
+     *
+     * @return - номер изменения для awaitCommit.
+     */
+    public long enqueue(String records) {
+        if (policy.getMode() == DurabilityMode.SYNC) {
+            synchronized (ioLock) {
+                synchronized (lock) {
+                    checkWritable();
+                }
+                writeAndForce(records);
+                synchronized (lock) {
+                    durable = ++enqueued;
+                    return enqueued;
+                }
+            }
+        }
+        synchronized (lock) {
+            checkWritable();
+            while (pendingWrites >= policy.getMaxBatch()) {
+                waitOnLock();
+                checkWritable();
+            }
+            if (committer == null) {
+                committer = new Thread(this::commitLoop, "journal-committer");
+                committer.setDaemon(true);
+                committer.start();
+            }
+            if (pendingWrites == 0) {
+                pendingSince = System.nanoTime();
+            }
+            pending.append(records);
+            pendingWrites++;
+            if (pendingWrites == 1 || pendingWrites >= policy.getMaxBatch()) {
+                lock.notifyAll();
+            }
+            return ++enqueued;
+        }
+    }
+
+    /**
+     * В режиме GROUP_COMMIT дожидается записи на диск изменения с номером ticket, в остальных режимах
+     * возвращается сразу: в SYNC изменение уже на диске, в ASYNC ждать не требуется.
+     */
+    public void awaitCommit(long ticket) {
+        if (policy.getMode() != DurabilityMode.GROUP_COMMIT) {
+            return;
+        }
+        synchronized (lock) {
+            while (durable < ticket) {
+                if (failure != null) {
+                    throw failure;
+                }
+                waitOnLock();
+            }
+        }
+    }
+
+    /**
+     * Записывает на диск все накопленные записи и возвращается после fsync.
+     */
+    public void flush() {
+        synchronized (ioLock) {
+            String batch;
+            long end;
+            synchronized (lock) {
+                if (failure != null) {
+                    throw failure;
+                }
+                if (pendingWrites == 0) {
+                    return;
+                }
+                batch = pending.toString();
+                end = enqueued;
+                pending.setLength(0);
+                pendingWrites = 0;
+                lock.notifyAll();
+            }
+            writeAndForce(batch);
+            synchronized (lock) {
+                durable = end;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Заменяет журнал целиком, накопленные и ещё не записанные записи отбрасываются вместе с прежним содержимым.
+     */
+    @Override
+    public void rewrite(String records) {
+        synchronized (ioLock) {
+            long end;
+            synchronized (lock) {
+                checkWritable();
+                end = enqueued;
+                pending.setLength(0);
+                pendingWrites = 0;
+            }
+            closeChannel();
+            Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+            try (FileChannel tempChannel = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                write(tempChannel, records);
+                tempChannel.force(false);
+                Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new ManagerSaveException("Failed to rewrite log " + path);
+            }
+            synchronized (lock) {
+                durable = Math.max(durable, end);
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * @return - содержимое журнала вместе с накопленными записями или пустую строку, если журнала нет.
+     */
+    @Override
+    public String read() {
+        synchronized (ioLock) {
+            flush();
+            try {
+                return Files.exists(path) ? Files.readString(path, UTF_8) : "";
+            } catch (IOException e) {
+                throw new ManagerSaveException("Failed to read log " + path);
+            }
+        }
+    }
+
+    /**
+     * Записывает накопленные записи на диск, останавливает поток-писатель и закрывает файл.
+     * Повторный вызов ничего не делает.
+     */
+    @Override
+    public void close() {
+        synchronized (ioLock) {
+            synchronized (lock) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                lock.notifyAll();
+            }
+            try {
+                flush();
+            } finally {
+                closeChannel();
+            }
+        }
+    }
+
+    private void commitLoop() {
+        while (true) {
+            synchronized (lock) {
+                try {
+                    while (pendingWrites == 0 && !closed) {
+                        lock.wait();
+                    }
+                    if (pendingWrites == 0) {
+                        return;
+                    }
+                    long remaining = pendingSince + maxDelayNanos - System.nanoTime();
+                    while (!closed && pendingWrites > 0 && pendingWrites < policy.getMaxBatch() && remaining > 0) {
+                        TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+                        remaining = pendingSince + maxDelayNanos - System.nanoTime();
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+            try {
+                flush();
+            } catch (ManagerSaveException e) {
+                System.out.println(e.getMessage());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Вызывается под ioLock. При ошибке журнал перестаёт принимать записи: после неудачного fsync
+     * нельзя узнать, какие из записей попали на диск.
+     */
+    private void writeAndForce(String records) {
+        try {
+            if (channel == null) {
+                channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.APPEND);
+            }
+            write(channel, records);
+            channel.force(false);
+        } catch (IOException e) {
+            synchronized (lock) {
+                failure = new ManagerSaveException("Failed to append to log " + path);
+                lock.notifyAll();
+                throw failure;
+            }
+        }
+    }
+
+    private static void write(FileChannel channel, String records) throws IOException {
+        ByteBuffer buffer = UTF_8.encode(records);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.out.println("Failed to close log " + path);
+        }
+        channel = null;
+    }
+
+    private void waitOnLock() {
+        try {
+            lock.wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ManagerSaveException("Interrupted while waiting for log " + path);
+        }
+    }
+
+    private void checkWritable() {
+        if (failure != null) {
+            throw failure;
+        }
+        if (closed) {
+            throw new ManagerSaveException("Log is closed " + path);
+        }
+    }
+}
@@ -28,6 +28,7 @@ public class HttpTaskManager extends FileBackedTasksManager {
                         (json, typeOfT, context) -> LocalDateTime.parse(json.getAsString(), DateTimeFormatter.ISO_LOCAL_DATE_TIME))
                 .create();
         this.kvTaskClient = new KVTaskClient(serverUrl);
+        historyLog.setLog(new KVLogStore(kvTaskClient, String.valueOf(HISTORY)));
         restoreState();
     }
 
@@ -36,7 +37,6 @@ public class HttpTaskManager extends FileBackedTasksManager {
             String tasks = kvTaskClient.load(String.valueOf(TASKS));
             String subtasks = kvTaskClient.load(String.valueOf(SUBTASKS));
             String epics = kvTaskClient.load(String.valueOf(EPICS));
-            String history = kvTaskClient.load(String.valueOf(HISTORY));
 
             List<Task> tasksList = gson.fromJson(tasks, new TypeToken<ArrayList<Task>>() {
             }.getType());
@@ -63,23 +63,23 @@ public class HttpTaskManager extends FileBackedTasksManager {
             }
 
             setNewIdValue(getEpicTasks(), getSubTasks(), getTasks());
+            rebuildIndexes();
             combineEpicAndSubTasks(getEpicTasks(), getSubTasks());
-            if (!history.isBlank()) {
-                restoreHistory(gson.fromJson(history, new TypeToken<List<Long>>() {
-                }.getType()), this);
-            }
+            historyLog.restore(this::findTask);
         } catch (IOException e) {
             throw new RuntimeException("Failed to save state " + e.getMessage());
         }
     }
 
+    /**
+     * Сохраняет задачи. История сюда не входит: каждый просмотр дописывается в журнал по ключу HISTORY.
+     */
     @Override
     public void save() {
         try {
             kvTaskClient.put(String.valueOf(TASKS), gson.toJson(getTasks().values()));
             kvTaskClient.put(String.valueOf(SUBTASKS), gson.toJson(getSubTasks().values()));
             kvTaskClient.put(String.valueOf(EPICS), gson.toJson(getEpicTasks().values()));
-            kvTaskClient.put(String.valueOf(HISTORY), gson.toJson(historyManager.getHistory()));
         } catch (IOException e) {
             throw new RuntimeException("Failed to save state " + e.getMessage());
         }
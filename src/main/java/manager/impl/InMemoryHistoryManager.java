@@ -1,91 +1,297 @@
 package manager.impl;
 
+import manager.api.HistoryEntry;
 import manager.api.HistoryManager;
 import task.Task;
+import utils.LongIntHashMap;
 
 import java.util.*;
 
+/**
+ * История просмотров ограниченной ёмкости: при заполнении вытесняется задача, которую смотрели раньше всех.
+ * Записи хранятся в параллельных массивах и связаны в двусвязный список индексами prev/next,
+ * каждой записи присваивается номер просмотра, растущий от ранних просмотров к последним,
+ * Id задачи отображается на номер записи примитивной хеш-таблицей. Освободившиеся записи используются повторно,
+ * поэтому после прогрева запись просмотра не выделяет память.
+ */
 public class InMemoryHistoryManager implements HistoryManager {
-    private Node first;
-    private Node last;
-    private final Map<Long, Node> nodeMap = new HashMap<>();
+    public static final int DEFAULT_CAPACITY = 1000;
+    private static final int INITIAL_SLOTS = 16;
+    private static final int NONE = -1;
+    private final int capacity;
+    private final LongIntHashMap slotById;
+    private Task[] tasks;
+    private long[] ids;
+    private long[] views;
+    private int[] prev;
+    private int[] next;
+    private int first = NONE;
+    private int last = NONE;
+    private int free = NONE;
+    private int used;
+    private int size;
+    private int modCount;
+    private long viewCount;
+
+    public InMemoryHistoryManager() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity - наибольшее число задач в истории. Массивы растут удвоением до capacity по мере заполнения.
+     */
+    public InMemoryHistoryManager(int capacity) {
+        if (capacity <= 0) {
+            throw new RuntimeException("History capacity must be positive");
+        }
+        this.capacity = capacity;
+        int slots = Math.min(capacity, INITIAL_SLOTS);
+        slotById = new LongIntHashMap(slots);
+        allocate(slots);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
 
     @Override
     public List<Task> getHistory() {
-        ArrayList<Task> tasks = new ArrayList<>();
+        ArrayList<Task> history = new ArrayList<>(size);
 
-        Node node = first;
-        while (node != null) {
-            tasks.add(node.task);
-            node = node.next;
+        int slot = first;
+        while (slot != NONE) {
+            history.add(tasks[slot]);
+            slot = next[slot];
         }
-        return tasks;
+        return history;
+    }
+
+    /**
+     * Страница истории от последних просмотров к ранним. Обходит только offset + limit записей.
+     *
+     * @param offset - сколько последних просмотров пропустить.
+     * @param limit  - наибольшее число задач на странице.
+     */
+    @Override
+    public List<Task> getHistory(int offset, int limit) {
+        checkPage(offset, limit);
+        int slot = last;
+        for (int i = 0; i < offset && slot != NONE; i++) {
+            slot = prev[slot];
+        }
+        return collectBefore(slot, limit);
+    }
+
+    /**
+     * Страница истории от последних просмотров к ранним из просмотров с номером меньше viewNumber.
+     * Обходит только просмотры новее курсора и саму страницу, O(m + limit).
+     *
+     * @param viewNumber - номер просмотра последней записи предыдущей страницы, Long.MAX_VALUE для первой страницы.
+     */
+    @Override
+    public List<HistoryEntry> getHistoryBefore(long viewNumber, int limit) {
+        checkPage(0, limit);
+        int slot = last;
+        while (slot != NONE && views[slot] >= viewNumber) {
+            slot = prev[slot];
+        }
+        List<HistoryEntry> page = new ArrayList<>(Math.min(limit, size));
+        while (slot != NONE && page.size() < limit) {
+            page.add(new HistoryEntry(tasks[slot], views[slot]));
+            slot = prev[slot];
+        }
+        return page;
+    }
+
+    /**
+     * @return - номера просмотров в порядке getHistory.
+     */
+    long[] getViewNumbers() {
+        long[] viewNumbers = new long[size];
+        int slot = first;
+        for (int i = 0; slot != NONE; i++) {
+            viewNumbers[i] = views[slot];
+            slot = next[slot];
+        }
+        return viewNumbers;
+    }
+
+    /**
+     * Обходит историю от последнего просмотра к первому без копирования.
+     * Бросает ConcurrentModificationException, если историю изменили во время обхода.
+     */
+    @Override
+    public Iterator<Task> descendingIterator() {
+        return new Iterator<>() {
+            private int slot = last;
+            private final int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return slot != NONE;
+            }
+
+            @Override
+            public Task next() {
+                if (expectedModCount != modCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (slot == NONE) {
+                    throw new NoSuchElementException();
+                }
+                Task task = tasks[slot];
+                slot = prev[slot];
+                return task;
+            }
+        };
     }
 
+    /**
+     * Переносит задачу в конец истории. Если задачи в истории не было и история заполнена,
+     * сначала вытесняется самая давняя запись.
+     */
     @Override
     public void add(Task task) {
         if (task == null) {
             return;
         }
 
-        if (nodeMap.containsKey(task.getId())) {
-            remove(task.getId());
+        long id = task.getId();
+        int slot = slotById.get(id, NONE);
+        if (slot != NONE) {
+            unlink(slot);
+        } else {
+            if (size == capacity) {
+                evictFirst();
+            }
+            slot = takeSlot();
+            ids[slot] = id;
+            slotById.put(id, slot, NONE);
+            size++;
         }
-        linklast(task);
+        tasks[slot] = task;
+        views[slot] = ++viewCount;
+        linkLast(slot);
+        modCount++;
     }
 
     @Override
     public void remove(long id) {
-        Node node;
-        if (nodeMap.containsKey(id)) {
-            node = nodeMap.remove(id);
-        } else {
+        int slot = slotById.remove(id, NONE);
+        if (slot == NONE) {
             return;
         }
-        removeNode(node);
+        release(slot);
         System.out.println("Task deleted from history by ID = " + id);
     }
 
-    private void removeNode(Node node) {
-        if (node.prev == null) {
-            first = node.next;
-            if (first == null) {
-                last = null;
-            } else {
-                first.prev = null;
-            }
-        } else {
-            node.prev.next = node.next;
-            if (node.next == null) {
-                last = node.prev;
-            } else {
-                node.next.prev = node.prev;
+    /**
+     * Удаляет из истории задачи с Id из ids за один проход по ids, каждая запись отвязывается за O(1).
+     * В отличие от remove пишет в консоль одну строку на весь вызов.
+     */
+    @Override
+    public void removeAll(Collection<Long> ids) {
+        int removed = 0;
+        for (Long id : ids) {
+            int slot = slotById.remove(id, NONE);
+            if (slot != NONE) {
+                release(slot);
+                removed++;
             }
         }
+        if (removed > 0) {
+            System.out.println("Tasks deleted from history: " + removed);
+        }
     }
 
-    private void linklast(Task task) {
-        Node node = new Node(task, last, null);
+    private List<Task> collectBefore(int slot, int limit) {
+        List<Task> page = new ArrayList<>(Math.min(limit, size));
+        while (slot != NONE && page.size() < limit) {
+            page.add(tasks[slot]);
+            slot = prev[slot];
+        }
+        return page;
+    }
 
-        if (first == null) {
-            first = node;
-        } else {
-            last.next = node;
+    static void checkPage(int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new RuntimeException("Offset and limit must not be negative");
+        }
+    }
+
+    private void evictFirst() {
+        int slot = first;
+        slotById.remove(ids[slot], NONE);
+        release(slot);
+    }
+
+    private void release(int slot) {
+        unlink(slot);
+        tasks[slot] = null;
+        next[slot] = free;
+        free = slot;
+        size--;
+        modCount++;
+    }
+
+    private int takeSlot() {
+        if (free != NONE) {
+            int slot = free;
+            free = next[slot];
+            return slot;
+        }
+        if (used == tasks.length) {
+            grow();
         }
-        last = node;
-        nodeMap.put(task.getId(), node);
-        System.out.println("Task added to history by ID = " + task.getId());
+        return used++;
     }
 
-    static class Node {
-        Task task;
-        Node next;
-        Node prev;
+    private void unlink(int slot) {
+        if (prev[slot] == NONE) {
+            first = next[slot];
+        } else {
+            next[prev[slot]] = next[slot];
+        }
+        if (next[slot] == NONE) {
+            last = prev[slot];
+        } else {
+            prev[next[slot]] = prev[slot];
+        }
+    }
 
-        public Node(Task task, Node prev, Node next) {
-            this.task = task;
-            this.next = next;
-            this.prev = prev;
+    private void linkLast(int slot) {
+        prev[slot] = last;
+        next[slot] = NONE;
+        if (last == NONE) {
+            first = slot;
+        } else {
+            next[last] = slot;
         }
+        last = slot;
+    }
+
+    private void allocate(int slots) {
+        tasks = new Task[slots];
+        ids = new long[slots];
+        views = new long[slots];
+        prev = new int[slots];
+        next = new int[slots];
+    }
+
+    /**
+     * Вызывается, только когда свободных записей нет, поэтому номера занятых записей при копировании не меняются.
+     */
+    private void grow() {
+        int slots = (int) Math.min(capacity, tasks.length * 2L);
+        tasks = Arrays.copyOf(tasks, slots);
+        ids = Arrays.copyOf(ids, slots);
+        views = Arrays.copyOf(views, slots);
+        prev = Arrays.copyOf(prev, slots);
+        next = Arrays.copyOf(next, slots);
     }
 }
@@ -1,38 +1,93 @@
 package manager.impl;
 
+import manager.api.HistoryManager;
 import manager.api.TaskManager;
+import manager.api.TimeTable;
 import task.EpicTask;
+import task.Recurrence;
 import task.SubTask;
 import task.Task;
 import task.TaskStatus;
+import task.TaskType;
+import utils.LongLinkedHashSet;
 
-import java.time.Duration;
+import java.time.DateTimeException;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
-public class InMemoryTaskManager implements TaskManager {
+public class InMemoryTaskManager implements TaskManager, AutoCloseable {
     private long id = 1;
     private Map<Long, Task> tasks = new HashMap<>();
     private Map<Long, EpicTask> epicTasks = new HashMap<>();
     private Map<Long, SubTask> subTasks = new HashMap<>();
-    protected LocalDateTime startYear = LocalDateTime.of(2023, 1, 1, 0, 0, 0);
-    protected LocalDateTime endYear = LocalDateTime.of(2023, 12, 31, 23, 59, 59);
-    private TreeSet<Task> orderTasksByStartTime = new TreeSet<>((o1, o2) -> {
-        if (o1.getStartTime() == null) {
-            return 1;
-        } else if (o2.getStartTime() == null) {
-            return -1;
-        } else if (o1.getStartTime().equals(o2.getStartTime())) {
-            return 1;
-        } else if (o1.getStartTime().isBefore(o2.getStartTime())) {
-            return -1;
-        } else {
-            return 1;
-        }
-    });
+    /**
+     * Задачи, эпики и подзадачи по возрастанию (startTime, Id), задачи без startTime - в конце по Id.
+     * Обновляется при каждом изменении задач, поэтому пара (startTime, Id) задачи не должна меняться,
+     * пока она в индексе.
+     */
+    private static final Comparator<Task> START_TIME_ORDER = Comparator
+            .comparing((Task task) -> task.getStartTime() == null)
+            .thenComparingLong(Task::getStartMinutes)
+            .thenComparingLong(Task::getId);
+    private final TreeSet<Task> orderTasksByStartTime = new TreeSet<>(START_TIME_ORDER);
+    /**
+     * Повторяющиеся задачи из orderTasksByStartTime: их повторения могут попасть в промежуток, начавшись задолго до него.
+     */
+    private final Set<Task> recurringTasksByStartTime = Collections.newSetFromMap(new IdentityHashMap<>());
+    /**
+     * Не меньше duration любой неповторяющейся задачи из orderTasksByStartTime. При удалении задач не уменьшается,
+     * пересчитывается в rebuildIndexes.
+     */
+    private long maxIndexedDuration;
+    private final Map<Long, EpicStatusCounter> epicStatusCounters = new HashMap<>();
+    private final Map<Long, EpicTimeBounds> epicTimeBounds = new HashMap<>();
+
+    private static final String UNASSIGNED = "";
+    /**
+     * Максимальное количество промежутков в ответе getUtilization.
+     */
+    private static final long MAX_UTILIZATION_BUCKETS = 10_000;
+    private final Map<String, TimeTable> timeTables = new ConcurrentHashMap<>();
+    private final Map<String, Map<Long, RecurringSeries>> recurringSeries = new ConcurrentHashMap<>();
+    private final Supplier<TimeTable> timeTableFactory;
+    /**
+     * Расписание исполнителя без задач для getFreeSlots. Только читается, поэтому одно на менеджер.
+     */
+    private final TimeTable emptyTimeTable;
+    public HistoryManager historyManager;
+
+    public InMemoryTaskManager() {
+        this(IntervalTimeTable::new);
+    }
+
+    /**
+     * @param timeTableFactory - создаёт расписание для каждого исполнителя при добавлении его первой задачи.
+     */
+    public InMemoryTaskManager(Supplier<TimeTable> timeTableFactory) {
+        this(timeTableFactory, new InMemoryHistoryManager());
+    }
 
-    protected TreeMap<Long, Long> timeTableByYear = new TreeMap<>(generateTimeTable());
-    public InMemoryHistoryManager historyManager = new InMemoryHistoryManager();
+    /**
+     * @param historyManager - история просмотров, например BufferedHistoryManager,
+     *                       чтобы запросы задач по Id не блокировали друг друга.
+     */
+    public InMemoryTaskManager(Supplier<TimeTable> timeTableFactory, HistoryManager historyManager) {
+        this.timeTableFactory = timeTableFactory;
+        this.emptyTimeTable = timeTableFactory.get();
+        this.historyManager = historyManager;
+    }
+
+    /**
+     * Закрывает историю просмотров: у BufferedHistoryManager останавливается поток-потребитель.
+     */
+    @Override
+    public void close() {
+        historyManager.close();
+    }
 
     private long generateId() {
         return id++;
@@ -46,111 +101,541 @@ public class InMemoryTaskManager implements TaskManager {
         return id;
     }
 
-    protected TreeMap<Long, Long> generateTimeTable() {
-        TreeMap<Long, Long> timeTableByYearPer15Min = new TreeMap<>();
-        long pointFromStartYear = 0;
-        LocalDateTime startOfYear = startYear;
-        LocalDateTime endOfYear = endYear;
-        Duration durationForYear = Duration.between(startOfYear, endOfYear);
+    protected static long toMinutes(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+    }
 
-        while (pointFromStartYear <= durationForYear.toMinutes()) {
-            timeTableByYearPer15Min.put(pointFromStartYear, 0L);
-            pointFromStartYear += 15;
-        }
+    protected static LocalDateTime fromMinutes(long minutes) {
+        return LocalDateTime.ofEpochSecond(minutes * 60, 0, ZoneOffset.UTC);
+    }
+
+    private static String resourceKey(String assignee) {
+        return assignee == null || assignee.isBlank() ? UNASSIGNED : assignee;
+    }
+
+    private static RecurringSeries toSeries(Task task) {
+        return new RecurringSeries(task.getStartMinutes(), task.getDuration(),
+                task.getRecurrence().getIntervalDays(), toMinutes(task.getRecurrence().getUntil()));
+    }
 
-        return timeTableByYearPer15Min;
+    private Collection<RecurringSeries> getRecurringSeries(String assignee) {
+        return recurringSeries.getOrDefault(assignee, Map.of()).values();
     }
 
+    protected Task findTask(long id) {
+        if (tasks.containsKey(id)) {
+            return tasks.get(id);
+        }
+        return subTasks.containsKey(id) ? subTasks.get(id) : epicTasks.get(id);
+    }
+
+    /**
+     * Проверяет, что время выполнения task не пересекается со временем задач того же исполнителя.
+     * Задачи без исполнителя проверяются по общему расписанию.
+     * Повторяющиеся задачи не разворачиваются: обычная задача сверяется с каждой серией за O(1),
+     * а для серии перебираются только задачи расписания между её первым и последним повторением.
+     *
+     * @param task - объект, время которого нужно проверить.
+     * @return true, если пересечений нет или у task не задано startTime.
+     * @throws RuntimeException - если у task задано правило повторения с intervalDays <= 0 или без until.
+     */
     protected Boolean checkIntersections(Task task) {
+        if (!isValidRecurrence(task.getRecurrence())) {
+            throw new RuntimeException("Not valid recurrence parameters");
+        }
         if (task.getStartTime() == null) {
             return true;
         }
-        LocalDateTime startTask = task.getStartTime();
-        LocalDateTime endTask = task.getEndTime();
-
-        long startPoint = timeTableByYear.ceilingKey(Duration.between(startYear, startTask).toMinutes());
-        long endPoint = timeTableByYear.floorKey(Duration.between(startYear, endTask).toMinutes());
-
-        return timeTableByYear.get(startPoint) == 0 && timeTableByYear.get(endPoint) == 0;
+        String assignee = resourceKey(task.getAssignee());
+        TimeTable timeTable = timeTables.get(assignee);
+        if (task.getRecurrence() == null) {
+            long start = task.getStartMinutes();
+            long end = task.getEndMinutes();
+            return (timeTable == null || timeTable.isFree(start, end))
+                    && getRecurringSeries(assignee).stream().noneMatch(series -> series.overlaps(start, end));
+        }
+        RecurringSeries newSeries = toSeries(task);
+        if (newSeries.isSelfOverlapping()) {
+            return false;
+        }
+        if (timeTable != null) {
+            for (long id : timeTable.findOverlaps(newSeries.getFirstStart(), newSeries.getLastEnd())) {
+                Task timedTask = findTask(id);
+                if (timedTask == null
+                        || newSeries.overlaps(timedTask.getStartMinutes(), timedTask.getEndMinutes())) {
+                    return false;
+                }
+            }
+        }
+        return getRecurringSeries(assignee).stream().noneMatch(newSeries::overlaps);
     }
 
+    /**
+     * Удаляет task из расписания её исполнителя, опустевшее расписание удаляется.
+     */
     protected void removeTaskFromTimeTable(Task task) {
         if (task.getStartTime() == null) {
             return;
         }
-        long sizeOfIntervalInMinBetweenCells = 15;
-        LocalDateTime startTask = task.getStartTime();
-        LocalDateTime endTask = task.getEndTime();
-
-        long startPoint = timeTableByYear.ceilingKey(Duration.between(startYear, startTask).toMinutes());
-        long endPoint = timeTableByYear.floorKey(Duration.between(startYear, endTask).toMinutes());
-
-        while (startPoint <= endPoint) {
-            timeTableByYear.put(startPoint, 0L);
-            startPoint += sizeOfIntervalInMinBetweenCells;
+        if (task.getRecurrence() != null) {
+            recurringSeries.computeIfPresent(resourceKey(task.getAssignee()), (assignee, series) -> {
+                series.remove(task.getId());
+                return series.isEmpty() ? null : series;
+            });
+            return;
         }
+        timeTables.computeIfPresent(resourceKey(task.getAssignee()), (assignee, timeTable) -> {
+            timeTable.remove(task.getStartMinutes(), task.getEndMinutes(), task.getId());
+            return timeTable.size() == 0 ? null : timeTable;
+        });
     }
 
+    /**
+     * Добавляет task в расписание её исполнителя. Повторяющаяся задача хранится одной серией.
+     */
     protected void addTaskToTimeTable(Task task) {
         if (task.getStartTime() == null) {
             return;
         }
-        long sizeOfIntervalInMinBetweenCells = 15;
-        LocalDateTime startTask = task.getStartTime();
-        LocalDateTime endTask = task.getEndTime();
+        if (task.getRecurrence() != null) {
+            recurringSeries.computeIfAbsent(resourceKey(task.getAssignee()), assignee -> new HashMap<>())
+                    .put(task.getId(), toSeries(task));
+            return;
+        }
+        timeTables.computeIfAbsent(resourceKey(task.getAssignee()), assignee -> timeTableFactory.get())
+                .add(task.getStartMinutes(), task.getEndMinutes(), task.getId());
+    }
+
+    /**
+     * Убирает из расписаний подзадачи каскадно удаляемого эпика. Если подзадачи исполнителя составляют не меньше
+     * четверти его расписания, расписание чистится одним проходом TimeTable.removeAll,
+     * иначе подзадачи удаляются поштучно.
+     */
+    private void removeCascadeFromTimeTables(LongLinkedHashSet subTaskIds) {
+        Map<String, List<SubTask>> subTasksByAssignee = new HashMap<>();
+        for (PrimitiveIterator.OfLong iterator = subTaskIds.iterator(); iterator.hasNext(); ) {
+            SubTask subTask = subTasks.get(iterator.nextLong());
+            if (subTask.getStartTime() != null) {
+                subTasksByAssignee.computeIfAbsent(resourceKey(subTask.getAssignee()), assignee -> new ArrayList<>())
+                        .add(subTask);
+            }
+        }
+        subTasksByAssignee.forEach((assignee, assigneeSubTasks) ->
+                timeTables.computeIfPresent(assignee, (key, timeTable) -> {
+                    if (assigneeSubTasks.size() * 4L >= timeTable.size()) {
+                        LongLinkedHashSet ids = new LongLinkedHashSet();
+                        assigneeSubTasks.forEach(subTask -> ids.add(subTask.getId()));
+                        timeTable.removeAll(ids);
+                    } else {
+                        assigneeSubTasks.forEach(subTask ->
+                                timeTable.remove(subTask.getStartMinutes(), subTask.getEndMinutes(), subTask.getId()));
+                    }
+                    return timeTable.size() == 0 ? null : timeTable;
+                }));
+    }
+
+    /**
+     * Gson создаёт Recurrence без конструктора, поэтому правило из JSON может иметь intervalDays <= 0 или until = null.
+     */
+    private static boolean isValidRecurrence(Recurrence recurrence) {
+        return recurrence == null || recurrence.getIntervalDays() > 0 && recurrence.getUntil() != null;
+    }
+
+    private static void checkNoRecurrence(SubTask subTask) {
+        if (subTask.getRecurrence() != null) {
+            throw new RuntimeException("Recurrence is supported only for tasks");
+        }
+    }
 
-        long startPoint = timeTableByYear.ceilingKey(Duration.between(startYear, startTask).toMinutes());
-        long endPoint = timeTableByYear.floorKey(Duration.between(startYear, endTask).toMinutes());
+    private static Task toOccurrence(Task task, LocalDateTime startTime) {
+        Task occurrence = new Task(task.getName(), task.getDescription(), task.getDuration(), startTime);
+        occurrence.setId(task.getId());
+        occurrence.setStatus(task.getStatus());
+        occurrence.setAssignee(task.getAssignee());
+        return occurrence;
+    }
 
-        while (startPoint <= endPoint) {
-            timeTableByYear.put(startPoint, task.getId());
-            startPoint += sizeOfIntervalInMinBetweenCells;
+    private static Task startTimeProbe(LocalDateTime startTime, long id) {
+        Task probe = new Task(null, null, 0, startTime);
+        probe.setId(id);
+        return probe;
+    }
+
+    private void addToStartTimeIndex(Task task) {
+        orderTasksByStartTime.add(task);
+        if (task.getRecurrence() != null) {
+            recurringTasksByStartTime.add(task);
+        } else {
+            maxIndexedDuration = Math.max(maxIndexedDuration, task.getDuration());
         }
     }
 
+    /**
+     * Удаляет task из индекса. Если startTime или Id задачи изменили, пока она была в индексе,
+     * задача ищется полным перебором.
+     */
+    private boolean removeFromStartTimeIndex(Task task) {
+        recurringTasksByStartTime.remove(task);
+        if (orderTasksByStartTime.ceiling(task) == task) {
+            return orderTasksByStartTime.remove(task);
+        }
+        return orderTasksByStartTime.removeIf(indexedTask -> indexedTask == task);
+    }
+
+    /**
+     * Перестраивает индекс по startTime, если задачи были добавлены в tasks, epicTasks или subTasks напрямую.
+     */
+    protected void rebuildIndexes() {
+        orderTasksByStartTime.clear();
+        recurringTasksByStartTime.clear();
+        maxIndexedDuration = 0;
+        tasks.values().forEach(this::addToStartTimeIndex);
+        epicTasks.values().forEach(this::addToStartTimeIndex);
+        subTasks.values().forEach(this::addToStartTimeIndex);
+    }
+
     private void deleteSubTaskFromEpic(SubTask subTask) {
         EpicTask epicTask = epicTasks.get(subTask.getIdEpicTask());
-        List<Long> subtaskId = epicTask.getSubTasksId();
-        subtaskId.remove(subTask.getId());
-        epicTask.setSubTasksId(subtaskId);
-        checkStatusEpicTask(epicTask);
-        updateEpicTimeParameters(epicTask);
-        epicTasks.put(epicTask.getId(), epicTask);
+        EpicStatusCounter statusCounter = getStatusCounter(epicTask);
+        EpicTimeBounds timeBounds = getTimeBounds(epicTask);
+        epicTask.removeSubTask(subTask.getId());
+        statusCounter.remove(subTask.getId());
+        timeBounds.remove(subTask.getId());
+        rollUp(epicTask);
     }
 
-    private void updateEpicTimeParameters(EpicTask epicTask) {
-        Optional<SubTask> firstTime = epicTask.getSubTasksId().stream()
-                .map(subtaskId -> subTasks.get(subtaskId))
-                .filter(subTask -> subTask.getStartTime() != null)
-                .min(Comparator.comparing(Task::getStartTime));
+    /**
+     * Пересчитывает статус и время epicTask по его счётчикам и переносит изменения в родительские эпики.
+     * Пересчитываются только предки epicTask, подъём останавливается на эпике, у которого ничего не изменилось.
+     * O(depth * log n).
+     */
+    private void rollUp(EpicTask epicTask) {
+        while (epicTask != null) {
+            TaskStatus oldStatus = epicTask.getStatus();
+            LocalDateTime oldStartTime = epicTask.getStartTime();
+            long oldDuration = epicTask.getDuration();
+            epicTask.setStatus(getStatusCounter(epicTask).getStatus());
+            updateEpicTimeParameters(epicTask);
+            EpicTask parent = epicTasks.get(epicTask.getIdParentEpic());
+            if (parent == null || oldStatus == epicTask.getStatus()
+                    && Objects.equals(oldStartTime, epicTask.getStartTime()) && oldDuration == epicTask.getDuration()) {
+                return;
+            }
+            getStatusCounter(parent).put(epicTask.getId(), epicTask.getStatus());
+            getTimeBounds(parent).put(epicTask.getId(), epicTask.getStartMinutes(), epicTask.getEndMinutes());
+            epicTask = parent;
+        }
+    }
 
-        firstTime.ifPresent(subTask -> epicTask.setStartTime(subTask.getStartTime()));
+    /**
+     * Переносит в epicTask границы его подзадач и дочерних эпиков: startTime - самое раннее начало,
+     * duration - до самого позднего окончания. Если ни у одной из них нет startTime, время эпика сбрасывается.
+     * O(log n).
+     */
+    private void updateEpicTimeParameters(EpicTask epicTask) {
+        EpicTimeBounds timeBounds = getTimeBounds(epicTask);
+        LocalDateTime startTime = timeBounds.isEmpty() ? null : fromMinutes(timeBounds.getStart());
+        long duration = timeBounds.isEmpty() ? 0 : timeBounds.getEnd() - timeBounds.getStart();
+        setEpicTime(epicTask, startTime, duration);
+    }
 
-        Optional<SubTask> lastSubtask = epicTask.getSubTasksId().stream()
-                .map(subtaskId -> subTasks.get(subtaskId))
-                .filter(subTask -> subTask.getStartTime() != null)
-                .max(Comparator.comparing(Task::getStartTime));
+    private void setEpicTime(EpicTask epicTask, LocalDateTime startTime, long duration) {
+        if (Objects.equals(startTime, epicTask.getStartTime())) {
+            epicTask.setDuration(duration);
+            maxIndexedDuration = Math.max(maxIndexedDuration, duration);
+            return;
+        }
+        boolean isIndexed = removeFromStartTimeIndex(epicTask);
+        epicTask.setStartTime(startTime);
+        epicTask.setDuration(duration);
+        if (isIndexed) {
+            addToStartTimeIndex(epicTask);
+        }
+    }
 
-        Optional<Duration> sumDuration = lastSubtask.stream()
-                .map(Task::getEndTime)
-                .map(endTime1 -> Duration.between(firstTime.get().getStartTime(), endTime1))
-                .findFirst();
+    /**
+     * Возвращает границы подзадач и дочерних эпиков epicTask. Пересчитываются полностью, только если их нет
+     * или число элементов в них разошлось с числом подзадач и дочерних эпиков.
+     */
+    private EpicTimeBounds getTimeBounds(EpicTask epicTask) {
+        EpicTimeBounds timeBounds = epicTimeBounds.get(epicTask.getId());
+        if (timeBounds == null || timeBounds.size() != countMembers(epicTask)) {
+            timeBounds = new EpicTimeBounds();
+            for (Long idSubTask : epicTask.getSubTasksId()) {
+                SubTask subTask = subTasks.get(idSubTask);
+                timeBounds.put(idSubTask, subTask.getStartMinutes(), subTask.getEndMinutes());
+            }
+            for (Long idChildEpic : epicTask.getChildEpicsId()) {
+                EpicTask childEpic = epicTasks.get(idChildEpic);
+                timeBounds.put(idChildEpic, childEpic.getStartMinutes(), childEpic.getEndMinutes());
+            }
+            epicTimeBounds.put(epicTask.getId(), timeBounds);
+        }
+        return timeBounds;
+    }
 
-        sumDuration.ifPresent(duration -> epicTask.setDuration(duration.toMinutes()));
+    private static int countMembers(EpicTask epicTask) {
+        return epicTask.getSubTasksId().size() + epicTask.getChildEpicsId().size();
     }
 
     @Override
     public List<Task> getOrderedTasksByStartTime() {
-        orderTasksByStartTime.addAll(tasks.values());
-        orderTasksByStartTime.addAll(epicTasks.values());
-        orderTasksByStartTime.addAll(subTasks.values());
+        return new ArrayList<>(orderTasksByStartTime);
+    }
 
-        ArrayList<Task> orderedTasks = new ArrayList<>(orderTasksByStartTime);
-        orderTasksByStartTime.clear();
+    /**
+     * Возвращает задачи, подзадачи и эпики, начинающиеся в промежутке [from, to), по возрастанию startTime.
+     * Время сравнивается с точностью до минуты. O(log n + k).
+     *
+     * @param from - начало промежутка.
+     * @param to   - конец промежутка, не включительно.
+     * @return - задачи промежутка, отсортированные по startTime и Id.
+     */
+    @Override
+    public List<Task> getTasksBetween(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new RuntimeException("Not valid period parameters");
+        }
+        return new ArrayList<>(orderTasksByStartTime.subSet(startTimeProbe(from, Long.MIN_VALUE), true,
+                startTimeProbe(to, Long.MIN_VALUE), false));
+    }
 
+    /**
+     * Возвращает до limit задач, следующих в индексе по startTime за позицией (startTime, id). O(log n + limit).
+     *
+     * @param startTime - startTime последней полученной задачи, null для позиции среди задач без startTime.
+     * @param id        - Id последней полученной задачи.
+     * @param limit     - максимальное количество задач.
+     * @return - задачи по возрастанию startTime и Id.
+     */
+    @Override
+    public List<Task> getTasksAfter(LocalDateTime startTime, long id, int limit) {
+        if (limit <= 0) {
+            throw new RuntimeException("Not valid page parameters");
+        }
+        return takeFirst(orderTasksByStartTime.tailSet(startTimeProbe(startTime, id), false).iterator(), limit);
+    }
+
+    /**
+     * Возвращает до limit задач, предшествующих в индексе по startTime позиции (startTime, id),
+     * в обратном порядке. O(log n + limit).
+     *
+     * @param startTime - startTime первой полученной задачи, null для позиции среди задач без startTime.
+     * @param id        - Id первой полученной задачи.
+     * @param limit     - максимальное количество задач.
+     * @return - задачи по убыванию startTime и Id.
+     */
+    @Override
+    public List<Task> getTasksBefore(LocalDateTime startTime, long id, int limit) {
+        if (limit <= 0) {
+            throw new RuntimeException("Not valid page parameters");
+        }
+        return takeFirst(orderTasksByStartTime.headSet(startTimeProbe(startTime, id), false).descendingIterator(),
+                limit);
+    }
+
+    /**
+     * Возвращает k ближайших задач и подзадач, начинающихся позже now, с точностью до минуты.
+     * Обычные задачи берутся из индекса по startTime, пока их не наберётся k, повторения задач
+     * вычисляются по сериям. Кандидаты отбираются в кучу размером не больше k. O(log n + k + r * k),
+     * где r - количество повторяющихся задач.
+     *
+     * @param now - время, после которого ищутся задачи.
+     * @param k   - количество задач.
+     * @return - задачи и повторения по возрастанию startTime и Id.
+     */
+    @Override
+    public List<Task> getUpcoming(LocalDateTime now, int k) {
+        if (now == null || k <= 0) {
+            throw new RuntimeException("Not valid upcoming parameters");
+        }
+        PriorityQueue<Task> upcoming = new PriorityQueue<>(k, START_TIME_ORDER.reversed());
+        for (Task task : orderTasksByStartTime.tailSet(startTimeProbe(now, Long.MAX_VALUE), false)) {
+            if (task.getStartTime() == null || upcoming.size() == k) {
+                break;
+            }
+            if (task.getTaskType() != TaskType.EPICTASK && task.getRecurrence() == null) {
+                upcoming.add(task);
+            }
+        }
+        long nowInMinutes = toMinutes(now);
+        for (Map<Long, RecurringSeries> series : recurringSeries.values()) {
+            for (Map.Entry<Long, RecurringSeries> entry : series.entrySet()) {
+                Task task = tasks.get(entry.getKey());
+                for (long start : entry.getValue().findStartsAfter(nowInMinutes, k)) {
+                    Task occurrence = toOccurrence(task, fromMinutes(start));
+                    if (upcoming.size() < k) {
+                        upcoming.add(occurrence);
+                    } else if (START_TIME_ORDER.compare(occurrence, upcoming.peek()) < 0) {
+                        upcoming.poll();
+                        upcoming.add(occurrence);
+                    } else {
+                        break;
+                    }
+                }
+            }
+        }
+        List<Task> result = new ArrayList<>(upcoming);
+        result.sort(START_TIME_ORDER);
+        return result;
+    }
+
+    private static List<Task> takeFirst(Iterator<Task> iterator, int limit) {
+        List<Task> result = new ArrayList<>();
+        while (iterator.hasNext() && result.size() < limit) {
+            result.add(iterator.next());
+        }
+        return result;
+    }
+
+    /**
+     * Возвращает задачи, подзадачи и эпики, выполняющиеся в промежутке [from, to), по возрастанию startTime.
+     * Повторяющиеся задачи разворачиваются только в пределах промежутка: каждое повторение возвращается
+     * отдельной задачей с Id исходной задачи.
+     * Обходит только задачи индекса, начавшиеся не раньше from - maxIndexedDuration и до to, и повторяющиеся задачи.
+     *
+     * @param from - начало промежутка.
+     * @param to   - конец промежутка, не включительно.
+     * @return - список задач и повторений, отсортированный по startTime и Id.
+     */
+    @Override
+    public List<Task> getOrderedTasksByStartTime(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new RuntimeException("Not valid period parameters");
+        }
+        long fromInMinutes = toMinutes(from);
+        long toInMinutes = toMinutes(to);
+        List<Task> orderedTasks = new ArrayList<>();
+        NavigableSet<Task> startedBeforeTo = orderTasksByStartTime.headSet(startTimeProbe(to, Long.MIN_VALUE), false);
+        if (fromInMinutes - toMinutes(LocalDateTime.MIN) > maxIndexedDuration) {
+            startedBeforeTo = startedBeforeTo.tailSet(
+                    startTimeProbe(fromMinutes(fromInMinutes - maxIndexedDuration), Long.MIN_VALUE), true);
+        }
+        for (Task task : startedBeforeTo) {
+            if (task.getRecurrence() == null && task.getStartMinutes() < toInMinutes
+                    && task.getEndMinutes() > fromInMinutes) {
+                orderedTasks.add(task);
+            }
+        }
+        for (Task task : recurringTasksByStartTime) {
+            if (task.getStartTime() != null) {
+                for (long start : toSeries(task).findStartsBetween(fromInMinutes, toInMinutes)) {
+                    orderedTasks.add(toOccurrence(task, fromMinutes(start)));
+                }
+            }
+        }
+        orderedTasks.sort(Comparator.comparingLong(Task::getStartMinutes).thenComparingLong(Task::getId));
         return orderedTasks;
     }
 
+    /**
+     * Ищет самые ранние окна, в которые можно поставить задачу длительностью duration без пересечений
+     * с задачами, подзадачами и повторениями задач исполнителя assignee. Окно из расписания, пересекающееся
+     * с повторением, сдвигается за его конец.
+     *
+     * @param after    - время, раньше которого окна не ищутся.
+     * @param duration - длительность задачи в минутах.
+     * @param limit    - максимальное количество окон.
+     * @param assignee - исполнитель, null для задач без исполнителя.
+     * @return - время начала окон по возрастанию, по одному на каждый свободный промежуток.
+     */
+    @Override
+    public List<LocalDateTime> getFreeSlots(LocalDateTime after, long duration, int limit, String assignee) {
+        if (after == null || duration < 0 || limit <= 0) {
+            throw new RuntimeException("Not valid slot parameters");
+        }
+        long afterInMinutes = toMinutes(after.plusSeconds(59).withSecond(0).withNano(0));
+        TimeTable timeTable = timeTables.get(resourceKey(assignee));
+        if (timeTable == null) {
+            timeTable = emptyTimeTable;
+        }
+        Collection<RecurringSeries> series = getRecurringSeries(resourceKey(assignee));
+        List<LocalDateTime> freeSlots = new ArrayList<>();
+        long candidate = afterInMinutes;
+        while (freeSlots.size() < limit) {
+            List<Long> windows = timeTable.findFreeWindows(candidate, duration, 2);
+            long window = windows.get(0);
+            long overlapEnd = Long.MIN_VALUE;
+            for (RecurringSeries recurring : series) {
+                overlapEnd = Math.max(overlapEnd, recurring.findOverlapEnd(window, window + duration));
+            }
+            if (overlapEnd != Long.MIN_VALUE) {
+                candidate = overlapEnd + 1;
+                continue;
+            }
+            freeSlots.add(fromMinutes(window));
+            long nextCandidate = windows.size() > 1 ? windows.get(1) : Long.MAX_VALUE;
+            for (RecurringSeries recurring : series) {
+                long nextEnd = recurring.findNextEnd(window);
+                if (nextEnd != Long.MAX_VALUE) {
+                    nextCandidate = Math.min(nextCandidate, nextEnd + 1);
+                }
+            }
+            if (nextCandidate == Long.MAX_VALUE) {
+                break;
+            }
+            candidate = nextCandidate;
+        }
+        return freeSlots;
+    }
+
+    /**
+     * Считает, сколько минут задач, подзадач и повторений задач приходится на каждый промежуток длиной bucket
+     * между from и to. Последний промежуток обрезается по to. Запросы больше чем на MAX_UTILIZATION_BUCKETS
+     * промежутков отклоняются до подсчёта.
+     *
+     * @param from     - начало первого промежутка.
+     * @param to       - конец последнего промежутка, не включительно.
+     * @param bucket   - длина промежутка.
+     * @param assignee - исполнитель, null для суммы по всем расписаниям.
+     * @return - занятые минуты по времени начала промежутка в порядке возрастания.
+     */
+    @Override
+    public Map<LocalDateTime, Long> getUtilization(LocalDateTime from, LocalDateTime to, ChronoUnit bucket,
+                                                   String assignee) {
+        if (from == null || to == null || bucket == null || !from.isBefore(to)) {
+            throw new RuntimeException("Not valid utilization parameters");
+        }
+        long bucketCount;
+        try {
+            bucketCount = bucket.between(from, to);
+        } catch (DateTimeException | ArithmeticException e) {
+            throw new RuntimeException("Not valid utilization parameters");
+        }
+        if (bucketCount >= MAX_UTILIZATION_BUCKETS) {
+            throw new RuntimeException("Not valid utilization parameters");
+        }
+        Collection<TimeTable> selectedTimeTables = assignee == null
+                ? timeTables.values()
+                : timeTables.containsKey(resourceKey(assignee))
+                ? List.of(timeTables.get(resourceKey(assignee)))
+                : List.of();
+        Collection<RecurringSeries> selectedSeries = new ArrayList<>();
+        if (assignee == null) {
+            recurringSeries.values().forEach(series -> selectedSeries.addAll(series.values()));
+        } else {
+            selectedSeries.addAll(getRecurringSeries(resourceKey(assignee)));
+        }
+        Map<LocalDateTime, Long> utilization = new LinkedHashMap<>();
+        LocalDateTime bucketStart = from;
+        while (bucketStart.isBefore(to)) {
+            LocalDateTime bucketEnd = bucketStart.plus(1, bucket);
+            if (bucketEnd.isAfter(to)) {
+                bucketEnd = to;
+            }
+            long occupiedMinutes = 0;
+            for (TimeTable timeTable : selectedTimeTables) {
+                occupiedMinutes += timeTable.getOccupiedMinutes(toMinutes(bucketStart), toMinutes(bucketEnd));
+            }
+            for (RecurringSeries series : selectedSeries) {
+                occupiedMinutes += series.getOccupiedMinutes(toMinutes(bucketStart), toMinutes(bucketEnd));
+            }
+            utilization.put(bucketStart, occupiedMinutes);
+            bucketStart = bucketEnd;
+        }
+        return utilization;
+    }
+
     @Override
     public Map<Long, EpicTask> getEpicTasks() {
         return epicTasks;
@@ -159,7 +644,11 @@ public class InMemoryTaskManager implements TaskManager {
     @Override
     public void setEpicTasks(Map<Long, EpicTask> epicTasks) {
         if (epicTasks != null) {
+            this.epicTasks.values().forEach(this::removeFromStartTimeIndex);
             this.epicTasks = epicTasks;
+            epicStatusCounters.clear();
+            epicTimeBounds.clear();
+            epicTasks.values().forEach(this::addToStartTimeIndex);
         }
     }
 
@@ -171,7 +660,11 @@ public class InMemoryTaskManager implements TaskManager {
     @Override
     public void setSubTasks(Map<Long, SubTask> subTasks) {
         if (subTasks != null) {
+            this.subTasks.values().forEach(this::removeFromStartTimeIndex);
             this.subTasks = subTasks;
+            epicStatusCounters.clear();
+            epicTimeBounds.clear();
+            subTasks.values().forEach(this::addToStartTimeIndex);
         }
     }
 
@@ -183,27 +676,81 @@ public class InMemoryTaskManager implements TaskManager {
     @Override
     public void setTasks(Map<Long, Task> tasks) {
         if (tasks != null) {
+            this.tasks.values().forEach(this::removeFromStartTimeIndex);
             this.tasks = tasks;
+            tasks.values().forEach(this::addToStartTimeIndex);
         }
     }
 
     /**
-     * Проверяет есть ли в epicTasks задача с epicId, если есть, то ищет в subTasks элементы с epicId и добавляет в result.
+     * Проверяет есть ли в epicTasks задача с epicId, если есть, то возвращает его подзадачи по списку subTasksId эпика
+     * за O(k), где k - число подзадач эпика.
      *
      * @param epicId - идентификатор EpicTask по которому нужно вернуть subTasks.
-     * @return - список subTasks с полем UUID idEpicTask равным epicId.
+     * @return - представление только для чтения subTasks с полем idEpicTask равным epicId в порядке добавления.
+     * Отражает последующие изменения подзадач эпика.
      */
     @Override
     public List<SubTask> getSubTasksByEpicId(long epicId) {
-        List<SubTask> result = new ArrayList<>();
-        if (epicTasks != null && epicTasks.containsKey(epicId)) {
-            for (long idSubtask : subTasks.keySet()) {
-                if (subTasks.get(idSubtask).getIdEpicTask() == epicId) {
-                    result.add(subTasks.get(idSubtask));
-                }
+        if (epicTasks == null || !epicTasks.containsKey(epicId)) {
+            return List.of();
+        }
+        return new EpicSubTasksView(epicId);
+    }
+
+    /**
+     * Подзадачи одного эпика поверх subTasksId эпика. Обход за O(k), get(index) - за O(index).
+     * После удаления эпика представление пусто.
+     */
+    private class EpicSubTasksView extends AbstractList<SubTask> {
+        private final long epicId;
+
+        private EpicSubTasksView(long epicId) {
+            this.epicId = epicId;
+        }
+
+        @Override
+        public SubTask get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException(index);
             }
+            Iterator<SubTask> iterator = iterator();
+            for (int i = 0; i < index; i++) {
+                iterator.next();
+            }
+            return iterator.next();
+        }
+
+        @Override
+        public int size() {
+            LongLinkedHashSet subTaskIds = subTaskIds();
+            return subTaskIds == null ? 0 : subTaskIds.size();
+        }
+
+        @Override
+        public Iterator<SubTask> iterator() {
+            LongLinkedHashSet subTaskIds = subTaskIds();
+            if (subTaskIds == null) {
+                return Collections.emptyIterator();
+            }
+            PrimitiveIterator.OfLong idIterator = subTaskIds.iterator();
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return idIterator.hasNext();
+                }
+
+                @Override
+                public SubTask next() {
+                    return subTasks.get(idIterator.nextLong());
+                }
+            };
+        }
+
+        private LongLinkedHashSet subTaskIds() {
+            EpicTask epicTask = epicTasks.get(epicId);
+            return epicTask == null ? null : epicTask.getSubTasksId();
         }
-        return result;
     }
 
     /**
@@ -211,6 +758,8 @@ public class InMemoryTaskManager implements TaskManager {
      */
     @Override
     public void removeAllTasks() {
+        tasks.values().forEach(this::removeTaskFromTimeTable);
+        tasks.values().forEach(this::removeFromStartTimeIndex);
         tasks.clear();
         System.out.println("Задачи удалены");
     }
@@ -220,7 +769,16 @@ public class InMemoryTaskManager implements TaskManager {
      */
     @Override
     public void removeAllSubTasks() {
+        subTasks.values().forEach(this::removeTaskFromTimeTable);
+        subTasks.values().forEach(this::removeFromStartTimeIndex);
         subTasks.clear();
+        epicStatusCounters.clear();
+        epicTimeBounds.clear();
+        for (EpicTask epicTask : epicTasks.values()) {
+            epicTask.getSubTasksId().clear();
+            epicTask.setStatus(TaskStatus.NEW);
+            setEpicTime(epicTask, null, 0);
+        }
         System.out.println("Задачи удалены");
     }
 
@@ -229,14 +787,19 @@ public class InMemoryTaskManager implements TaskManager {
      */
     @Override
     public void removeAllEpicTasks() {
+        subTasks.values().forEach(this::removeTaskFromTimeTable);
+        subTasks.values().forEach(this::removeFromStartTimeIndex);
+        epicTasks.values().forEach(this::removeFromStartTimeIndex);
         epicTasks.clear();
+        epicStatusCounters.clear();
+        epicTimeBounds.clear();
         subTasks.clear();
         System.out.println("Задачи удалены");
     }
 
     /**
      * Ищет по Id объект, при нахождении в tasks возвращает.
-     * Вызывает метод add у объекта типа InMemoryHistoryManager.
+     * Вызывает метод add у historyManager.
      *
      * @param id - объекта, который нужно найти и вернуть.
      */
@@ -251,7 +814,7 @@ public class InMemoryTaskManager implements TaskManager {
 
     /**
      * Ищет по Id объект, при нахождении в subTasks возвращает.
-     * Вызывает метод add у объекта типа InMemoryHistoryManager.
+     * Вызывает метод add у historyManager.
      *
      * @param id - объекта, который нужно найти и вернуть.
      */
@@ -265,7 +828,7 @@ public class InMemoryTaskManager implements TaskManager {
 
     /**
      * Ищет по Id объект, при нахождении в epicTasks возвращает.
-     * Вызывает метод add у объекта типа InMemoryHistoryManager.
+     * Вызывает метод add у historyManager.
      *
      * @param id - объекта, который нужно найти и вернуть.
      */
@@ -291,11 +854,14 @@ public class InMemoryTaskManager implements TaskManager {
             task.setId(generateId());
             addTaskToTimeTable(task);
             tasks.put(task.getId(), task);
+            addToStartTimeIndex(task);
         }
     }
 
     /**
      * Генерирует для epicTask id и добавляет в epicTasks значение task по ключу Id.
+     * Дочерний эпик добавляется пустым: со статусом NEW, без времени и подзадач, чтобы в родительский эпик
+     * не попали переданные клиентом статус и время.
      *
      * @param epicTask
      */
@@ -304,8 +870,44 @@ public class InMemoryTaskManager implements TaskManager {
         if (epicTask == null) {
             throw new RuntimeException("Empty value passed");
         }
+        EpicTask parent = null;
+        if (epicTask.getIdParentEpic() != 0) {
+            parent = epicTasks.get(epicTask.getIdParentEpic());
+            if (parent == null) {
+                throw new RuntimeException("Parent epic not found");
+            }
+        }
         epicTask.setId(generateId());
+        putEpicTask(epicTask, parent);
+        addToStartTimeIndex(epicTask);
+        if (parent != null) {
+            rollUp(parent);
+        }
+    }
+
+    /**
+     * Добавляет в epicTasks эпик с уже назначенным Id и связывает его с parent. Дочерние эпики, переданные клиентом,
+     * отбрасываются, а дочерний эпик сбрасывается до пустого. В индекс по startTime эпик не добавляется,
+     * агрегаты parent после связывания нужно пересчитать через rollUp.
+     *
+     * @param parent - родительский эпик или null для эпика верхнего уровня.
+     */
+    private void putEpicTask(EpicTask epicTask, EpicTask parent) {
+        epicTask.setChildEpicsId(List.of());
+        if (parent != null) {
+            epicTask.setSubTasksId(List.of());
+            epicTask.setStatus(TaskStatus.NEW);
+            epicTask.setStartTime(null);
+            epicTask.setDuration(0);
+        }
         epicTasks.put(epicTask.getId(), epicTask);
+        if (parent != null) {
+            EpicStatusCounter statusCounter = getStatusCounter(parent);
+            EpicTimeBounds timeBounds = getTimeBounds(parent);
+            parent.addChildEpic(epicTask.getId());
+            statusCounter.put(epicTask.getId(), epicTask.getStatus());
+            timeBounds.put(epicTask.getId(), epicTask.getStartMinutes(), epicTask.getEndMinutes());
+        }
     }
 
     /**
@@ -318,15 +920,128 @@ public class InMemoryTaskManager implements TaskManager {
         if (subTask == null) {
             throw new RuntimeException("Empty value passed");
         }
+        checkNoRecurrence(subTask);
         if (checkIntersections(subTask)) {
             long idEpicTask = subTask.getIdEpicTask();
             subTask.setId(generateId());
             addTaskToTimeTable(subTask);
             subTasks.put(subTask.getId(), subTask);
-            epicTasks.get(idEpicTask).addSubTask(subTask.getId());
-            updateEpicTimeParameters(epicTasks.get(idEpicTask));
-            checkStatusEpicTask(epicTasks.get(idEpicTask));
+            addToStartTimeIndex(subTask);
+            addSubTaskToEpic(epicTasks.get(idEpicTask), subTask);
+            rollUp(epicTasks.get(idEpicTask));
+        }
+    }
+
+    /**
+     * Добавляет пачку задач и подзадач за один проход. Задачи сортируются по startTime и проверяются одним
+     * проходом: друг с другом по концу последней принятой задачи того же исполнителя и с уже добавленными задачами
+     * по расписанию исполнителя.
+     * Повторяющиеся задачи проверяются после этого прохода: с расписаниями, с принятыми задачами пачки
+     * и с уже принятыми сериями пачки.
+     * Задачи с неверным правилом повторения, подзадачи без существующего EpicTask или с повторением и эпики
+     * с несуществующим родительским эпиком отклоняются, остальные задачи без startTime принимаются всегда.
+     * Эпики добавляются так же, как в addNewEpicTask: дочерний эпик добавляется пустым и связывается с родителем.
+     * Принятые задачи получают Id в порядке newTasks, статус и время каждого затронутого EpicTask
+     * пересчитываются один раз.
+     *
+     * @param newTasks - задачи, подзадачи и эпики для добавления.
+     * @return - список отклонённых задач в порядке newTasks.
+     */
+    @Override
+    public List<Task> addNewTasks(List<? extends Task> newTasks) {
+        if (newTasks == null) {
+            throw new RuntimeException("Empty value passed");
+        }
+        Set<Task> rejected = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Task> timedTasks = new ArrayList<>();
+        List<Task> recurringTasks = new ArrayList<>();
+        for (Task task : newTasks) {
+            if (task == null) {
+                throw new RuntimeException("Empty value passed");
+            } else if (task instanceof SubTask subTask && (!epicTasks.containsKey(subTask.getIdEpicTask())
+                    || subTask.getRecurrence() != null)) {
+                rejected.add(task);
+            } else if (task instanceof EpicTask epicTask && epicTask.getIdParentEpic() != 0
+                    && !epicTasks.containsKey(epicTask.getIdParentEpic())) {
+                rejected.add(task);
+            } else if (!isValidRecurrence(task.getRecurrence())) {
+                rejected.add(task);
+            } else if (task.getStartTime() == null || task.getTaskType() == TaskType.EPICTASK) {
+                continue;
+            } else if (task.getRecurrence() != null) {
+                recurringTasks.add(task);
+            } else {
+                timedTasks.add(task);
+            }
+        }
+        timedTasks.sort(Comparator.comparingLong(Task::getStartMinutes));
+
+        Map<String, Long> lastAcceptedEnds = new HashMap<>();
+        Map<String, List<Task>> acceptedTasks = new HashMap<>();
+        for (Task task : timedTasks) {
+            String assignee = resourceKey(task.getAssignee());
+            long start = task.getStartMinutes();
+            long end = task.getEndMinutes();
+            long lastAcceptedEnd = lastAcceptedEnds.getOrDefault(assignee, Long.MIN_VALUE);
+            if (start <= lastAcceptedEnd || !checkIntersections(task)) {
+                rejected.add(task);
+            } else {
+                lastAcceptedEnds.put(assignee, Math.max(lastAcceptedEnd, end));
+                acceptedTasks.computeIfAbsent(assignee, key -> new ArrayList<>()).add(task);
+            }
+        }
+
+        Map<String, List<RecurringSeries>> acceptedSeries = new HashMap<>();
+        for (Task task : recurringTasks) {
+            String assignee = resourceKey(task.getAssignee());
+            RecurringSeries series = toSeries(task);
+            boolean isFree = checkIntersections(task)
+                    && acceptedTasks.getOrDefault(assignee, List.of()).stream().noneMatch(accepted ->
+                    series.overlaps(accepted.getStartMinutes(), accepted.getEndMinutes()))
+                    && acceptedSeries.getOrDefault(assignee, List.of()).stream().noneMatch(series::overlaps);
+            if (isFree) {
+                acceptedSeries.computeIfAbsent(assignee, key -> new ArrayList<>()).add(series);
+            } else {
+                rejected.add(task);
+            }
         }
+
+        Set<EpicTask> changedEpics = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Task> rejectedInOrder = new ArrayList<>();
+        for (Task task : newTasks) {
+            if (rejected.contains(task)) {
+                rejectedInOrder.add(task);
+                continue;
+            }
+            task.setId(generateId());
+            switch (task.getTaskType()) {
+                case TASK -> {
+                    addTaskToTimeTable(task);
+                    tasks.put(task.getId(), task);
+                }
+                case EPICTASK -> {
+                    EpicTask epicTask = (EpicTask) task;
+                    EpicTask parent = epicTasks.get(epicTask.getIdParentEpic());
+                    putEpicTask(epicTask, parent);
+                    if (parent != null) {
+                        changedEpics.add(parent);
+                    }
+                }
+                case SUBTASK -> {
+                    SubTask subTask = (SubTask) task;
+                    EpicTask epicTask = epicTasks.get(subTask.getIdEpicTask());
+                    addTaskToTimeTable(subTask);
+                    subTasks.put(subTask.getId(), subTask);
+                    addSubTaskToEpic(epicTask, subTask);
+                    changedEpics.add(epicTask);
+                }
+            }
+            addToStartTimeIndex(task);
+        }
+        for (EpicTask epicTask : changedEpics) {
+            rollUp(epicTask);
+        }
+        return rejectedInOrder;
     }
 
     /**
@@ -345,14 +1060,16 @@ public class InMemoryTaskManager implements TaskManager {
             addTaskToTimeTable(oldTask);
             throw new RuntimeException("Task time overlaps with an existing task");
         }
+        removeFromStartTimeIndex(oldTask);
         tasks.put(updatedTask.getId(), updatedTask);
         addTaskToTimeTable(updatedTask);
+        addToStartTimeIndex(updatedTask);
         System.out.println("Задача обновлена");
     }
 
     /**
      * Проверяет на null subTasks, ищет объект с равным Id и найденный объект заменяет на updatedTask.
-     * Вызывает метод checkStatusEpicTask для EpicTask к которому updatedTask является SubTask.
+     * Пересчитывает статус EpicTask, к которому updatedTask является SubTask, по счётчикам статусов.
      *
      * @param updatedTask - обновленный объект, который нужно вставить при совпадении Id вместо найденного в tasks.
      */
@@ -361,6 +1078,7 @@ public class InMemoryTaskManager implements TaskManager {
         if (subTasks == null || !subTasks.containsKey(updatedTask.getId())) {
             throw new RuntimeException("Task not found");
         }
+        checkNoRecurrence(updatedTask);
         SubTask oldTask = subTasks.get(updatedTask.getId());
         removeTaskFromTimeTable(oldTask);
         if (!checkIntersections(updatedTask)) {
@@ -369,9 +1087,12 @@ public class InMemoryTaskManager implements TaskManager {
         }
         EpicTask epicTask = epicTasks.get(updatedTask.getIdEpicTask());
         addTaskToTimeTable(updatedTask);
+        removeFromStartTimeIndex(oldTask);
         subTasks.put(updatedTask.getId(), updatedTask);
-        checkStatusEpicTask(epicTask);
-        updateEpicTimeParameters(epicTask);
+        addToStartTimeIndex(updatedTask);
+        getStatusCounter(epicTask).put(updatedTask.getId(), updatedTask.getStatus());
+        getTimeBounds(epicTask).put(updatedTask.getId(), updatedTask.getStartMinutes(), updatedTask.getEndMinutes());
+        rollUp(epicTask);
         System.out.println("Задача обновлена");
     }
 
@@ -385,7 +1106,12 @@ public class InMemoryTaskManager implements TaskManager {
         if (epicTasks == null || !epicTasks.containsKey(updatedTask.getId())) {
             throw new RuntimeException("Task not found");
         }
-        List<Long> subTasksId = updatedTask.getSubTasksId();
+        EpicTask oldTask = epicTasks.get(updatedTask.getId());
+        if (updatedTask.getIdParentEpic() != oldTask.getIdParentEpic()) {
+            throw new RuntimeException("Parent epic cannot be changed");
+        }
+        updatedTask.setChildEpicsId(oldTask.getChildEpicsId());
+        LongLinkedHashSet subTasksId = updatedTask.getSubTasksId();
 
         if (!subTasksId.isEmpty()) {
             for (Long idSubtask : subTasksId) {
@@ -393,44 +1119,65 @@ public class InMemoryTaskManager implements TaskManager {
             }
         }
 
+        removeFromStartTimeIndex(oldTask);
         epicTasks.put(updatedTask.getId(), updatedTask);
+        addToStartTimeIndex(updatedTask);
+        rollUp(updatedTask);
         System.out.println("Задача обновлена");
     }
 
     /**
-     * Проверяет на null epicTasks, считает статусы в subTasks, которые соответствуют epicTask и изменяет статус
-     * объекта в зависимости от условий.
+     * Пересчитывает статусы всех подзадач epicTask и изменяет статус объекта в зависимости от условий.
+     * Менеджер сам поддерживает статус эпиков счётчиками, метод нужен, если подзадачи изменили в обход менеджера.
      *
      * @param epicTask - объект в котором нужно проверить статус subTasks и изменить статус самого объекта.
      */
     @Override
     public void checkStatusEpicTask(EpicTask epicTask) {
         if (epicTask != null) {
-            List<Long> listSubTasks = epicTask.getSubTasksId();
-            int doneStatus = 0;
-            int inProgressStatus = 0;
-            int newStatus = 0;
-
-            for (Long idSubTask : listSubTasks) {
-                TaskStatus status = subTasks.get(idSubTask).getStatus();
-                if (status == TaskStatus.NEW) {
-                    newStatus++;
-                } else if (status == TaskStatus.DONE) {
-                    doneStatus++;
-                } else {
-                    inProgressStatus++;
-                }
-            }
-            if (doneStatus == 0 && inProgressStatus == 0 || listSubTasks.isEmpty()) {
-                epicTask.setStatus(TaskStatus.NEW);
-            } else if (doneStatus > 0 && inProgressStatus == 0 && newStatus == 0) {
-                epicTask.setStatus(TaskStatus.DONE);
+            EpicStatusCounter statusCounter = countStatuses(epicTask);
+            if (epicTasks.get(epicTask.getId()) == epicTask) {
+                epicStatusCounters.put(epicTask.getId(), statusCounter);
+                rollUp(epicTask);
             } else {
-                epicTask.setStatus(TaskStatus.IN_PROGRESS);
+                epicTask.setStatus(statusCounter.getStatus());
             }
         }
     }
 
+    private EpicStatusCounter countStatuses(EpicTask epicTask) {
+        EpicStatusCounter statusCounter = new EpicStatusCounter();
+        for (Long idSubTask : epicTask.getSubTasksId()) {
+            statusCounter.put(idSubTask, subTasks.get(idSubTask).getStatus());
+        }
+        for (Long idChildEpic : epicTask.getChildEpicsId()) {
+            statusCounter.put(idChildEpic, epicTasks.get(idChildEpic).getStatus());
+        }
+        return statusCounter;
+    }
+
+    /**
+     * Возвращает счётчики статусов подзадач и дочерних эпиков epicTask. Счётчики пересчитываются полностью,
+     * только если их нет или число элементов в них разошлось с числом подзадач и дочерних эпиков,
+     * например после восстановления из файла.
+     */
+    private EpicStatusCounter getStatusCounter(EpicTask epicTask) {
+        EpicStatusCounter statusCounter = epicStatusCounters.get(epicTask.getId());
+        if (statusCounter == null || statusCounter.size() != countMembers(epicTask)) {
+            statusCounter = countStatuses(epicTask);
+            epicStatusCounters.put(epicTask.getId(), statusCounter);
+        }
+        return statusCounter;
+    }
+
+    private void addSubTaskToEpic(EpicTask epicTask, SubTask subTask) {
+        EpicStatusCounter statusCounter = getStatusCounter(epicTask);
+        EpicTimeBounds timeBounds = getTimeBounds(epicTask);
+        epicTask.addSubTask(subTask.getId());
+        statusCounter.put(subTask.getId(), subTask.getStatus());
+        timeBounds.put(subTask.getId(), subTask.getStartMinutes(), subTask.getEndMinutes());
+    }
+
     /**
      * Проверяет на null tasks, ищет объект с равным  Id и удаляет из tasks.
      *
@@ -442,6 +1189,7 @@ public class InMemoryTaskManager implements TaskManager {
             throw new RuntimeException("Task not found");
         }
         removeTaskFromTimeTable(tasks.get(id));
+        removeFromStartTimeIndex(tasks.get(id));
         tasks.remove(id);
         historyManager.remove(id);
         System.out.println("Task deleted by id  = " + id);
@@ -458,6 +1206,7 @@ public class InMemoryTaskManager implements TaskManager {
             throw new RuntimeException("Task not found");
         }
         removeTaskFromTimeTable(subTasks.get(id));
+        removeFromStartTimeIndex(subTasks.get(id));
         deleteSubTaskFromEpic(subTasks.get(id));
         subTasks.remove(id);
         historyManager.remove(id);
@@ -465,8 +1214,11 @@ public class InMemoryTaskManager implements TaskManager {
     }
 
     /**
-     * Проверяет на null epicTasks, ищет объект с равным Id и удаляет из epicTasks.
-     * Также удаляет из subTasks по ключу subTask'и содержащиеся в поле subTasks EpicTask.
+     * Проверяет на null epicTasks, ищет объект с равным Id и удаляет из epicTasks вместе со всеми дочерними эпиками.
+     * Также удаляет из subTasks подзадачи всех удалённых эпиков. Подзадачи удаляются пачкой:
+     * из расписаний - removeCascadeFromTimeTables, из индекса по startTime - одним проходом, если они составляют
+     * не меньше четверти индекса, из истории - одним вызовом вместе с эпиками.
+     * Статус и время родительского эпика пересчитываются по пути к корню.
      *
      * @param id - объекта, который нужно найти и удалить из epicTasks.
      */
@@ -475,17 +1227,49 @@ public class InMemoryTaskManager implements TaskManager {
         if (epicTasks == null || !epicTasks.containsKey(id)) {
             throw new RuntimeException("Task not found");
         }
-        List<Long> listSubTasks = epicTasks.get(id).getSubTasksId();
-        epicTasks.remove(id);
-        historyManager.remove(id);
+        EpicTask parent = epicTasks.get(epicTasks.get(id).getIdParentEpic());
+        if (parent != null) {
+            EpicStatusCounter statusCounter = getStatusCounter(parent);
+            EpicTimeBounds timeBounds = getTimeBounds(parent);
+            parent.removeChildEpic(id);
+            statusCounter.remove(id);
+            timeBounds.remove(id);
+        }
+        LongLinkedHashSet removedEpicIds = new LongLinkedHashSet();
+        LongLinkedHashSet listSubTasks = new LongLinkedHashSet();
+        Deque<EpicTask> epicsToRemove = new ArrayDeque<>();
+        epicsToRemove.push(epicTasks.get(id));
+        while (!epicsToRemove.isEmpty()) {
+            EpicTask epicTask = epicsToRemove.pop();
+            removedEpicIds.add(epicTask.getId());
+            listSubTasks.addAll(epicTask.getSubTasksId());
+            for (PrimitiveIterator.OfLong iterator = epicTask.getChildEpicsId().iterator(); iterator.hasNext(); ) {
+                epicsToRemove.push(epicTasks.get(iterator.nextLong()));
+            }
+        }
+        for (PrimitiveIterator.OfLong iterator = removedEpicIds.iterator(); iterator.hasNext(); ) {
+            long idEpic = iterator.nextLong();
+            removeFromStartTimeIndex(epicTasks.remove(idEpic));
+            epicStatusCounters.remove(idEpic);
+            epicTimeBounds.remove(idEpic);
+        }
 
-        if (!listSubTasks.isEmpty()) {
-            for (Long idSubtask : listSubTasks) {
-                removeTaskFromTimeTable(subTasks.get(idSubtask));
-                subTasks.remove(idSubtask);
-                historyManager.remove(idSubtask);
+        removeCascadeFromTimeTables(listSubTasks);
+        if (listSubTasks.size() * 4L >= orderTasksByStartTime.size()) {
+            orderTasksByStartTime.removeIf(task -> task instanceof SubTask && listSubTasks.contains(task.getId())
+                    && subTasks.get(task.getId()) == task);
+            subTasks.keySet().removeAll(listSubTasks);
+        } else {
+            for (PrimitiveIterator.OfLong iterator = listSubTasks.iterator(); iterator.hasNext(); ) {
+                removeFromStartTimeIndex(subTasks.remove(iterator.nextLong()));
             }
         }
+        LongLinkedHashSet removedIds = new LongLinkedHashSet(listSubTasks);
+        removedIds.addAll(removedEpicIds);
+        historyManager.removeAll(removedIds);
+        if (parent != null) {
+            rollUp(parent);
+        }
         System.out.println("Task deleted by id  = " + id);
     }
 }
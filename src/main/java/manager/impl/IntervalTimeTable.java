@@ -0,0 +1,324 @@
+package manager.impl;
+
+import manager.api.TimeTable;
+import utils.LongLinkedHashSet;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Расписание задач в виде AVL-дерева интервалов. Интервалы закрытые [start, end] в минутах,
+ * ключ узла - пара (start, taskId), каждый узел хранит максимальный end своего поддерева.
+ * Начала и концы интервалов дополнительно хранятся в starts и ends для подсчёта занятых минут.
+ */
+public class IntervalTimeTable implements TimeTable {
+    private final PrefixSumTree starts = new PrefixSumTree();
+    private final PrefixSumTree ends = new PrefixSumTree();
+    private Node root;
+    private int size;
+
+    /**
+     * Проверяет, что интервал [start, end] не пересекается ни с одной задачей в расписании. O(log n).
+     */
+    @Override
+    public boolean isFree(long start, long end) {
+        Node node = root;
+        while (node != null) {
+            if (node.start <= end && node.end >= start) {
+                return false;
+            }
+            if (node.left != null && node.left.maxEnd >= start) {
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Возвращает Id всех задач, пересекающихся с интервалом [start, end], в порядке времени начала. O(log n + k).
+     */
+    @Override
+    public List<Long> findOverlaps(long start, long end) {
+        List<Long> result = new ArrayList<>();
+        collectOverlaps(root, start, end, result);
+        return result;
+    }
+
+    /**
+     * Ищет самые ранние свободные окна длительностью duration, начиная с after. Обходит дерево по возрастанию
+     * start и пропускает поддеревья, все интервалы которых закончились раньше текущего кандидата.
+     *
+     * @return - время начала окон, по одному на каждый промежуток между задачами, не более limit.
+     */
+    @Override
+    public List<Long> findFreeWindows(long after, long duration, int limit) {
+        List<Long> result = new ArrayList<>();
+        Deque<Node> stack = new ArrayDeque<>();
+        long candidate = after;
+        Node node = root;
+
+        while ((node != null || !stack.isEmpty()) && result.size() < limit) {
+            while (node != null && node.maxEnd >= candidate) {
+                stack.push(node);
+                node = node.left;
+            }
+            if (stack.isEmpty()) {
+                break;
+            }
+            node = stack.pop();
+            if (node.end >= candidate) {
+                if (candidate + duration < node.start) {
+                    result.add(candidate);
+                }
+                candidate = Math.max(candidate, node.end + 1);
+            }
+            node = node.right;
+        }
+        if (result.size() < limit) {
+            result.add(candidate);
+        }
+        return result;
+    }
+
+    /**
+     * Считает занятые задачами минуты в промежутке [from, to) как разность занятых минут до to и до from. O(log n).
+     */
+    @Override
+    public long getOccupiedMinutes(long from, long to) {
+        return occupiedBefore(to) - occupiedBefore(from);
+    }
+
+    @Override
+    public void add(long start, long end, long taskId) {
+        root = insert(root, start, end, taskId);
+    }
+
+    @Override
+    public void remove(long start, long end, long taskId) {
+        root = delete(root, start, taskId);
+    }
+
+    /**
+     * Удаляет интервалы всех задач из taskIds за один обход дерева: оставшиеся узлы собираются по возрастанию ключа
+     * и из них строится сбалансированное дерево. Начала и концы в starts и ends удаляются поштучно или, если удалено
+     * больше, чем осталось, заполняются заново. O(n + min(k, n - k) log n), выгоднее поштучного удаления,
+     * когда удаляется заметная доля расписания. Id, переданные не в LongLinkedHashSet, сначала копируются в него.
+     */
+    @Override
+    public void removeAll(Collection<Long> taskIds) {
+        LongLinkedHashSet ids = taskIds instanceof LongLinkedHashSet set ? set : new LongLinkedHashSet(taskIds);
+        List<Node> kept = new ArrayList<>(size);
+        List<Node> removed = new ArrayList<>();
+        collect(root, ids, kept, removed);
+        root = build(kept, 0, kept.size() - 1);
+        size = kept.size();
+        if (removed.size() > kept.size()) {
+            starts.clear();
+            ends.clear();
+            for (Node node : kept) {
+                starts.add(node.start);
+                ends.add(node.end);
+            }
+        } else {
+            for (Node node : removed) {
+                starts.remove(node.start);
+                ends.remove(node.end);
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        root = null;
+        size = 0;
+        starts.clear();
+        ends.clear();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private long occupiedBefore(long time) {
+        return time * starts.countBefore(time) - starts.sumBefore(time)
+                - (time * ends.countBefore(time) - ends.sumBefore(time));
+    }
+
+    private void collectOverlaps(Node node, long start, long end, List<Long> result) {
+        if (node == null || node.maxEnd < start) {
+            return;
+        }
+        collectOverlaps(node.left, start, end, result);
+        if (node.start <= end && node.end >= start) {
+            result.add(node.taskId);
+        }
+        if (node.start <= end) {
+            collectOverlaps(node.right, start, end, result);
+        }
+    }
+
+    private static void collect(Node node, LongLinkedHashSet taskIds, List<Node> kept, List<Node> removed) {
+        if (node == null) {
+            return;
+        }
+        collect(node.left, taskIds, kept, removed);
+        if (taskIds.contains(node.taskId)) {
+            removed.add(node);
+        } else {
+            kept.add(node);
+        }
+        collect(node.right, taskIds, kept, removed);
+    }
+
+    private static Node build(List<Node> nodes, int from, int to) {
+        if (from > to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        Node node = nodes.get(middle);
+        node.left = build(nodes, from, middle - 1);
+        node.right = build(nodes, middle + 1, to);
+        update(node);
+        return node;
+    }
+
+    private Node insert(Node node, long start, long end, long taskId) {
+        if (node == null) {
+            size++;
+            starts.add(start);
+            ends.add(end);
+            return new Node(start, end, taskId);
+        }
+        int cmp = compare(start, taskId, node);
+        if (cmp < 0) {
+            node.left = insert(node.left, start, end, taskId);
+        } else if (cmp > 0) {
+            node.right = insert(node.right, start, end, taskId);
+        } else {
+            ends.remove(node.end);
+            ends.add(end);
+            node.end = end;
+        }
+        return balance(node);
+    }
+
+    private Node delete(Node node, long start, long taskId) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(start, taskId, node);
+        if (cmp < 0) {
+            node.left = delete(node.left, start, taskId);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, start, taskId);
+        } else {
+            size--;
+            starts.remove(node.start);
+            ends.remove(node.end);
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            node.right = removeMin(node.right);
+            successor.right = node.right;
+            successor.left = node.left;
+            node = successor;
+        }
+        return balance(node);
+    }
+
+    private Node removeMin(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = removeMin(node.left);
+        return balance(node);
+    }
+
+    private static int compare(long start, long taskId, Node node) {
+        int cmp = Long.compare(start, node.start);
+        return cmp != 0 ? cmp : Long.compare(taskId, node.taskId);
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static void update(Node node) {
+        node.height = Math.max(height(node.left), height(node.right)) + 1;
+        long maxEnd = node.end;
+        if (node.left != null) {
+            maxEnd = Math.max(maxEnd, node.left.maxEnd);
+        }
+        if (node.right != null) {
+            maxEnd = Math.max(maxEnd, node.right.maxEnd);
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static Node balance(Node node) {
+        update(node);
+        int factor = height(node.left) - height(node.right);
+        if (factor > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (factor < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    static class Node {
+        final long start;
+        long end;
+        final long taskId;
+        long maxEnd;
+        int height;
+        Node left;
+        Node right;
+
+        public Node(long start, long end, long taskId) {
+            this.start = start;
+            this.end = end;
+            this.taskId = taskId;
+            this.maxEnd = end;
+            this.height = 1;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package manager.impl;
+
+import manager.api.LogStore;
+import manager.server.KVTaskClient;
+
+import java.io.IOException;
+
+/**
+ * Журнал в значении ключа KVServer. Записи дописываются запросом /append без передачи всего значения.
+ */
+public class KVLogStore implements LogStore {
+    private final KVTaskClient kvTaskClient;
+    private final String key;
+
+    public KVLogStore(KVTaskClient kvTaskClient, String key) {
+        this.kvTaskClient = kvTaskClient;
+        this.key = key;
+    }
+
+    @Override
+    public void append(String records) {
+        try {
+            kvTaskClient.append(key, records);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to append to log " + e.getMessage());
+        }
+    }
+
+    /**
+     * KVServer не хранит пустые значения, поэтому пустой журнал записывается одной пустой строкой.
+     */
+    @Override
+    public void rewrite(String records) {
+        try {
+            kvTaskClient.put(key, records.isEmpty() ? "\n" : records);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to rewrite log " + e.getMessage());
+        }
+    }
+
+    @Override
+    public String read() {
+        try {
+            return kvTaskClient.load(key);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read log " + e.getMessage());
+        }
+    }
+}
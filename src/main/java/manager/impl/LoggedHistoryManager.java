@@ -0,0 +1,174 @@
+package manager.impl;
+
+import manager.api.HistoryEntry;
+import manager.api.HistoryManager;
+import manager.api.LogStore;
+import task.Task;
+import utils.LongLinkedHashSet;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.function.LongFunction;
+
+/**
+ * История просмотров, которая сохраняет каждое изменение записью в конец журнала:
+ * "+id" - просмотр задачи, "-id" - удаление задачи из истории, по одной записи в строке.
+ * Когда записей в журнале становится больше COMPACTION_THRESHOLD и вдвое больше, чем задач в истории,
+ * журнал перезаписывается просмотрами текущей истории от ранних к последним.
+ * Первое изменение после создания, если журнал не был восстановлен методом restore,
+ * тоже перезаписывает журнал, чтобы в нём не осталось записей прежнего менеджера.
+ */
+public class LoggedHistoryManager implements HistoryManager {
+    public static final int COMPACTION_THRESHOLD = 1024;
+    private static final char VIEW = '+';
+    private static final char REMOVE = '-';
+    private final HistoryManager history;
+    private LogStore log;
+    private int records;
+    private boolean synced;
+
+    public LoggedHistoryManager(HistoryManager history, LogStore log) {
+        this.history = history;
+        this.log = log;
+    }
+
+    /**
+     * Переключает историю на другой журнал. Следующее изменение перезапишет его текущей историей.
+     */
+    public void setLog(LogStore log) {
+        this.log = log;
+        synced = false;
+    }
+
+    @Override
+    public void add(Task task) {
+        if (task == null) {
+            return;
+        }
+        history.add(task);
+        append(String.valueOf(VIEW) + task.getId() + "\n", 1);
+    }
+
+    @Override
+    public void remove(long id) {
+        history.remove(id);
+        append(String.valueOf(REMOVE) + id + "\n", 1);
+    }
+
+    /**
+     * Все удаления дописываются в журнал одной записью в хранилище.
+     */
+    @Override
+    public void removeAll(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        history.removeAll(ids);
+        StringBuilder records = new StringBuilder();
+        for (Long id : ids) {
+            records.append(REMOVE).append(id).append('\n');
+        }
+        append(records.toString(), ids.size());
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return history.getHistory();
+    }
+
+    @Override
+    public int size() {
+        return history.size();
+    }
+
+    @Override
+    public List<Task> getHistory(int offset, int limit) {
+        return history.getHistory(offset, limit);
+    }
+
+    @Override
+    public List<HistoryEntry> getHistoryBefore(long viewNumber, int limit) {
+        return history.getHistoryBefore(viewNumber, limit);
+    }
+
+    @Override
+    public Iterator<Task> descendingIterator() {
+        return history.descendingIterator();
+    }
+
+    @Override
+    public void close() {
+        history.close();
+    }
+
+    /**
+     * Проигрывает журнал и добавляет в историю задачи, которые остались в ней после последней записи.
+     * Каждая такая задача ищется в taskStore один раз, Id удалённых задач пропускаются.
+     * Если журнал длиннее итоговой истории, он сжимается.
+     *
+     * @param taskStore - возвращает задачу по Id или null, если задачи нет.
+     */
+    public void restore(LongFunction<Task> taskStore) {
+        LongLinkedHashSet viewed = replay(log.read());
+        int logRecords = records;
+        PrimitiveIterator.OfLong iterator = viewed.iterator();
+        while (iterator.hasNext()) {
+            Task task = taskStore.apply(iterator.nextLong());
+            if (task != null) {
+                history.add(task);
+            }
+        }
+        synced = true;
+        if (logRecords > history.size()) {
+            compact();
+        }
+    }
+
+    /**
+     * Перезаписывает журнал просмотрами текущей истории.
+     */
+    public void compact() {
+        List<Task> tasks = history.getHistory();
+        StringBuilder records = new StringBuilder();
+        for (Task task : tasks) {
+            records.append(VIEW).append(task.getId()).append('\n');
+        }
+        log.rewrite(records.toString());
+        this.records = tasks.size();
+        synced = true;
+    }
+
+    /**
+     * @return - Id задач, оставшихся в истории после всех записей журнала, от ранних просмотров к последним.
+     */
+    private LongLinkedHashSet replay(String records) {
+        LongLinkedHashSet viewed = new LongLinkedHashSet();
+        this.records = 0;
+        for (String record : records.split("\n")) {
+            if (record.isBlank()) {
+                continue;
+            }
+            long id = Long.parseLong(record.substring(1).strip());
+            viewed.remove(id);
+            if (record.charAt(0) == VIEW) {
+                viewed.add(id);
+            }
+            this.records++;
+        }
+        return viewed;
+    }
+
+    private void append(String records, int count) {
+        if (!synced) {
+            compact();
+            return;
+        }
+        log.append(records);
+        this.records += count;
+        if (this.records > COMPACTION_THRESHOLD && this.records > 2 * history.size()) {
+            compact();
+        }
+    }
+}
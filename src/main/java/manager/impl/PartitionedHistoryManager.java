@@ -0,0 +1,244 @@
+package manager.impl;
+
+import manager.api.HistoryEntry;
+import task.Task;
+import utils.LongIntHashMap;
+import utils.LongLinkedHashSet;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+import java.util.function.LongSupplier;
+
+/**
+ * Истории просмотров отдельных пользователей. Раздел пользователя хранит только Id задач в порядке просмотра
+ * и номера их просмотров внутри раздела,
+ * задачи берутся из общего хранилища при чтении, а Id удалённых задач, встреченные при чтении, удаляются из раздела.
+ * Разделы, к которым не обращались дольше idleTimeout, удаляются при очередном обращении к любому разделу.
+ * Разделов не больше maxPartitions: новый раздел сверх этого числа вытесняет раздел, к которому дольше всех
+ * не обращались, поэтому произвольные имена пользователей не раздувают память.
+ * Каждый раздел изменяется под блокировкой своей записи ConcurrentHashMap, поэтому пользователи не мешают друг другу.
+ */
+public class PartitionedHistoryManager {
+    public static final int DEFAULT_CAPACITY = 100;
+    public static final int DEFAULT_MAX_PARTITIONS = 10_000;
+    public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(30);
+    private final LongFunction<Task> taskStore;
+    private final int capacity;
+    private final int maxPartitions;
+    private final long idleTimeoutNanos;
+    private final LongSupplier clock;
+    private final Map<String, Partition> partitions = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweep;
+
+    public PartitionedHistoryManager(LongFunction<Task> taskStore) {
+        this(taskStore, DEFAULT_CAPACITY, DEFAULT_MAX_PARTITIONS, DEFAULT_IDLE_TIMEOUT, System::nanoTime);
+    }
+
+    /**
+     * @param taskStore     - возвращает задачу по Id или null, если задачи нет.
+     * @param capacity      - наибольшее число задач в истории одного пользователя.
+     * @param maxPartitions - наибольшее число хранимых разделов.
+     * @param idleTimeout   - время без обращений, после которого раздел пользователя удаляется.
+     * @param clock         - текущее время в наносекундах.
+     */
+    public PartitionedHistoryManager(LongFunction<Task> taskStore, int capacity, int maxPartitions,
+                                     Duration idleTimeout, LongSupplier clock) {
+        if (capacity <= 0 || maxPartitions <= 0) {
+            throw new RuntimeException("History capacity must be positive");
+        }
+        this.taskStore = taskStore;
+        this.capacity = capacity;
+        this.maxPartitions = maxPartitions;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.clock = clock;
+        this.nextSweep = new AtomicLong(clock.getAsLong() + idleTimeoutNanos);
+    }
+
+    /**
+     * @return - число хранимых разделов.
+     */
+    public int size() {
+        return partitions.size();
+    }
+
+    /**
+     * Переносит Id задачи в конец истории пользователя, при заполнении вытесняет самый давний просмотр.
+     */
+    public void add(String user, long id) {
+        long now = touch();
+        if (!partitions.containsKey(user) && partitions.size() >= maxPartitions) {
+            evictLeastRecentlyActive();
+        }
+        partitions.compute(user, (key, partition) -> {
+            if (partition == null) {
+                partition = new Partition();
+            }
+            partition.lastAccess = now;
+            partition.ids.remove(id);
+            if (partition.ids.size() == capacity) {
+                partition.views.remove(partition.ids.removeFirst(), 0);
+            }
+            partition.ids.add(id);
+            partition.views.put(id, ++partition.viewCount, 0);
+            return partition;
+        });
+    }
+
+    public void remove(String user, long id) {
+        long now = touch();
+        partitions.computeIfPresent(user, (key, partition) -> {
+            partition.lastAccess = now;
+            partition.remove(id);
+            return partition;
+        });
+    }
+
+    /**
+     * @return - задачи из истории пользователя от ранних просмотров к последним.
+     */
+    public List<Task> getHistory(String user) {
+        List<Task> history = new ArrayList<>();
+        read(user, partition -> {
+            PrimitiveIterator.OfLong iterator = partition.ids.iterator();
+            List<Long> deletedIds = new ArrayList<>();
+            while (iterator.hasNext()) {
+                long id = iterator.nextLong();
+                Task task = taskStore.apply(id);
+                if (task == null) {
+                    deletedIds.add(id);
+                } else {
+                    history.add(task);
+                }
+            }
+            deletedIds.forEach(partition::remove);
+        });
+        return history;
+    }
+
+    /**
+     * Страница истории пользователя от последних просмотров к ранним.
+     *
+     * @param offset - сколько последних просмотров пропустить.
+     */
+    public List<Task> getHistory(String user, int offset, int limit) {
+        InMemoryHistoryManager.checkPage(offset, limit);
+        List<Task> page = new ArrayList<>(Math.min(limit, capacity));
+        read(user, partition -> {
+            PrimitiveIterator.OfLong iterator = partition.ids.descendingIterator();
+            for (int i = 0; i < offset && iterator.hasNext(); i++) {
+                iterator.nextLong();
+            }
+            List<Long> deletedIds = new ArrayList<>();
+            while (iterator.hasNext() && page.size() < limit) {
+                long id = iterator.nextLong();
+                Task task = taskStore.apply(id);
+                if (task == null) {
+                    deletedIds.add(id);
+                } else {
+                    page.add(task);
+                }
+            }
+            deletedIds.forEach(partition::remove);
+        });
+        return page;
+    }
+
+    /**
+     * Страница истории пользователя от последних просмотров к ранним из просмотров с номером меньше viewNumber.
+     *
+     * @param viewNumber - номер просмотра последней записи предыдущей страницы, Long.MAX_VALUE для первой страницы.
+     */
+    public List<HistoryEntry> getHistoryBefore(String user, long viewNumber, int limit) {
+        InMemoryHistoryManager.checkPage(0, limit);
+        List<HistoryEntry> page = new ArrayList<>(Math.min(limit, capacity));
+        read(user, partition -> {
+            PrimitiveIterator.OfLong iterator = partition.ids.descendingIterator();
+            List<Long> deletedIds = new ArrayList<>();
+            while (iterator.hasNext() && page.size() < limit) {
+                long id = iterator.nextLong();
+                int view = partition.views.get(id, 0);
+                if (view >= viewNumber) {
+                    continue;
+                }
+                Task task = taskStore.apply(id);
+                if (task == null) {
+                    deletedIds.add(id);
+                } else {
+                    page.add(new HistoryEntry(task, view));
+                }
+            }
+            deletedIds.forEach(partition::remove);
+        });
+        return page;
+    }
+
+    /**
+     * Удаляет разделы, к которым не обращались дольше idleTimeout.
+     */
+    public void evictIdle() {
+        long now = clock.getAsLong();
+        for (String user : partitions.keySet()) {
+            partitions.computeIfPresent(user,
+                    (key, partition) -> now - partition.lastAccess > idleTimeoutNanos ? null : partition);
+        }
+    }
+
+    /**
+     * Удаляет раздел, к которому дольше всех не обращались. Вызывается только при создании раздела сверх
+     * maxPartitions, O(maxPartitions).
+     */
+    private void evictLeastRecentlyActive() {
+        String leastRecentUser = null;
+        long leastRecentAccess = 0;
+        for (Map.Entry<String, Partition> entry : partitions.entrySet()) {
+            long lastAccess = entry.getValue().lastAccess;
+            if (leastRecentUser == null || lastAccess - leastRecentAccess < 0) {
+                leastRecentUser = entry.getKey();
+                leastRecentAccess = lastAccess;
+            }
+        }
+        if (leastRecentUser != null) {
+            partitions.remove(leastRecentUser);
+        }
+    }
+
+    /**
+     * Возвращает текущее время и не чаще раза в idleTimeout запускает удаление простаивающих разделов.
+     */
+    private long touch() {
+        long now = clock.getAsLong();
+        long sweepAt = nextSweep.get();
+        if (now - sweepAt >= 0 && nextSweep.compareAndSet(sweepAt, now + idleTimeoutNanos)) {
+            evictIdle();
+        }
+        return now;
+    }
+
+    private void read(String user, Consumer<Partition> reader) {
+        long now = touch();
+        partitions.computeIfPresent(user, (key, partition) -> {
+            partition.lastAccess = now;
+            reader.accept(partition);
+            return partition;
+        });
+    }
+
+    private static class Partition {
+        private final LongLinkedHashSet ids = new LongLinkedHashSet();
+        private final LongIntHashMap views = new LongIntHashMap();
+        private int viewCount;
+        private volatile long lastAccess;
+
+        private void remove(long id) {
+            ids.remove(id);
+            views.remove(id, 0);
+        }
+    }
+}
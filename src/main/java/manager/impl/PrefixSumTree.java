@@ -0,0 +1,178 @@
+package manager.impl;
+
+/**
+ * Мультимножество чисел типа long в виде AVL-дерева. Каждый узел хранит количество и сумму ключей своего
+ * поддерева, поэтому количество и сумма ключей меньше заданного считаются за O(log n).
+ */
+class PrefixSumTree {
+    private Node root;
+
+    void add(long key) {
+        root = insert(root, key);
+    }
+
+    void remove(long key) {
+        root = delete(root, key);
+    }
+
+    void clear() {
+        root = null;
+    }
+
+    /**
+     * @return - количество ключей меньше key.
+     */
+    long countBefore(long key) {
+        long count = 0;
+        Node node = root;
+        while (node != null) {
+            if (node.key < key) {
+                count += node.count + count(node.left);
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return - сумма ключей меньше key.
+     */
+    long sumBefore(long key) {
+        long sum = 0;
+        Node node = root;
+        while (node != null) {
+            if (node.key < key) {
+                sum += node.key * node.count + sum(node.left);
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return sum;
+    }
+
+    private Node insert(Node node, long key) {
+        if (node == null) {
+            return new Node(key);
+        }
+        if (key < node.key) {
+            node.left = insert(node.left, key);
+        } else if (key > node.key) {
+            node.right = insert(node.right, key);
+        } else {
+            node.count++;
+        }
+        return balance(node);
+    }
+
+    private Node delete(Node node, long key) {
+        if (node == null) {
+            return null;
+        }
+        if (key < node.key) {
+            node.left = delete(node.left, key);
+        } else if (key > node.key) {
+            node.right = delete(node.right, key);
+        } else if (node.count > 1) {
+            node.count--;
+        } else {
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            node.right = removeMin(node.right);
+            successor.right = node.right;
+            successor.left = node.left;
+            node = successor;
+        }
+        return balance(node);
+    }
+
+    private Node removeMin(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = removeMin(node.left);
+        return balance(node);
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static long count(Node node) {
+        return node == null ? 0 : node.subtreeCount;
+    }
+
+    private static long sum(Node node) {
+        return node == null ? 0 : node.subtreeSum;
+    }
+
+    private static void update(Node node) {
+        node.height = Math.max(height(node.left), height(node.right)) + 1;
+        node.subtreeCount = node.count + count(node.left) + count(node.right);
+        node.subtreeSum = node.key * node.count + sum(node.left) + sum(node.right);
+    }
+
+    private static Node balance(Node node) {
+        update(node);
+        int factor = height(node.left) - height(node.right);
+        if (factor > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (factor < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    static class Node {
+        final long key;
+        long count;
+        long subtreeCount;
+        long subtreeSum;
+        int height;
+        Node left;
+        Node right;
+
+        public Node(long key) {
+            this.key = key;
+            this.count = 1;
+            this.subtreeCount = 1;
+            this.subtreeSum = key;
+            this.height = 1;
+        }
+    }
+}
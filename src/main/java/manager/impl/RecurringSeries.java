@@ -0,0 +1,139 @@
+package manager.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Серия повторений задачи в минутах от начала эпохи. Повторения не хранятся: k-е повторение занимает
+ * закрытый интервал [firstStart + k * period, firstStart + k * period + duration], k от 0 до count - 1.
+ * Все запросы вычисляют номера нужных повторений арифметически и перебирают только их.
+ */
+class RecurringSeries {
+    private static final long MINUTES_IN_DAY = 24 * 60;
+    private final long firstStart;
+    private final long duration;
+    private final long period;
+    private final long count;
+
+    /**
+     * @param until - время, позже которого повторения не начинаются. Первое повторение есть всегда.
+     */
+    RecurringSeries(long firstStart, long duration, long intervalDays, long until) {
+        this.firstStart = firstStart;
+        this.duration = duration;
+        this.period = intervalDays * MINUTES_IN_DAY;
+        this.count = until <= firstStart ? 1 : (until - firstStart) / period + 1;
+    }
+
+    long getFirstStart() {
+        return firstStart;
+    }
+
+    long getLastEnd() {
+        return endOf(count - 1);
+    }
+
+    /**
+     * @return - true, если соседние повторения серии пересекаются друг с другом.
+     */
+    boolean isSelfOverlapping() {
+        return count > 1 && duration >= period;
+    }
+
+    /**
+     * @return - true, если хотя бы одно повторение пересекается с интервалом [start, end]. O(1).
+     */
+    boolean overlaps(long start, long end) {
+        long k = firstEndingAtOrAfter(start);
+        return k < count && startOf(k) <= end;
+    }
+
+    /**
+     * Проверяет пересечение двух серий. Взаимное расположение повторений повторяется через наименьшее общее
+     * кратное периодов, поэтому перебираются только повторения этой серии в общем промежутке длиной не больше НОК.
+     */
+    boolean overlaps(RecurringSeries other) {
+        long from = Math.max(firstStart, other.firstStart) - Math.max(duration, other.duration);
+        long to = Math.min(getLastEnd(), other.getLastEnd());
+        long cycle = period / gcd(period, other.period);
+        if (cycle <= (to - from) / other.period) {
+            to = from + cycle * other.period + Math.max(duration, other.duration);
+        }
+        for (long k = firstEndingAtOrAfter(from); k < count && startOf(k) <= to; k++) {
+            if (other.overlaps(startOf(k), endOf(k))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return - конец первого повторения, пересекающегося с [start, end], или Long.MIN_VALUE, если такого нет.
+     */
+    long findOverlapEnd(long start, long end) {
+        long k = firstEndingAtOrAfter(start);
+        return k < count && startOf(k) <= end ? endOf(k) : Long.MIN_VALUE;
+    }
+
+    /**
+     * @return - конец первого повторения, начинающегося позже time, или Long.MAX_VALUE, если такого нет.
+     */
+    long findNextEnd(long time) {
+        long k = firstStartingAfter(time);
+        return k < count ? endOf(k) : Long.MAX_VALUE;
+    }
+
+    /**
+     * @return - время начала повторений, которые начинаются раньше to и заканчиваются позже from.
+     */
+    List<Long> findStartsBetween(long from, long to) {
+        List<Long> result = new ArrayList<>();
+        for (long k = firstEndingAtOrAfter(from + 1); k < count && startOf(k) < to; k++) {
+            result.add(startOf(k));
+        }
+        return result;
+    }
+
+    /**
+     * @return - время начала не более limit повторений, начинающихся позже time.
+     */
+    List<Long> findStartsAfter(long time, int limit) {
+        List<Long> result = new ArrayList<>();
+        for (long k = firstStartingAfter(time); k < count && result.size() < limit; k++) {
+            result.add(startOf(k));
+        }
+        return result;
+    }
+
+    /**
+     * Считает минуты повторений в промежутке [from, to) так же, как TimeTable.getOccupiedMinutes.
+     */
+    long getOccupiedMinutes(long from, long to) {
+        long occupiedMinutes = 0;
+        for (long k = firstEndingAtOrAfter(from); k < count && startOf(k) < to; k++) {
+            occupiedMinutes += Math.max(0, Math.min(endOf(k), to) - Math.max(startOf(k), from));
+        }
+        return occupiedMinutes;
+    }
+
+    private long firstEndingAtOrAfter(long time) {
+        long offset = time - duration - firstStart;
+        return offset <= 0 ? 0 : Math.min(Math.ceilDiv(offset, period), count);
+    }
+
+    private long firstStartingAfter(long time) {
+        return time < firstStart ? 0 : Math.min((time - firstStart) / period + 1, count);
+    }
+
+    private long startOf(long k) {
+        return firstStart + k * period;
+    }
+
+    private long endOf(long k) {
+        return startOf(k) + duration;
+    }
+
+    private static long gcd(long a, long b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+}
@@ -0,0 +1,292 @@
+package manager.impl;
+
+import manager.api.TimeTable;
+import utils.LongLinkedHashSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Расписание задач в виде 15-минутных ячеек, отсчитываемых от начала эпохи. Ячейки сгруппированы в страницы
+ * по PAGE_SLOTS штук (около 42 суток), страница создаётся при первом занятии её ячейки и удаляется,
+ * когда освобождается последняя. В странице занятость хранится битовой картой long[],
+ * Id задачи, занимающей ячейку, - в параллельном массиве taskIds.
+ * Интервал [start, end] занимает ячейки от ближайшей к start сверху до ближайшей к end снизу.
+ */
+public class SlotTimeTable implements TimeTable {
+    private static final long SLOT_SIZE_IN_MIN = 15;
+    private static final int PAGE_SHIFT = 12;
+    private static final int PAGE_SLOTS = 1 << PAGE_SHIFT;
+    private static final int WORDS_PER_PAGE = PAGE_SLOTS >>> 6;
+    private final TreeMap<Long, Page> pages = new TreeMap<>();
+    private int size;
+
+    /**
+     * Проверяет все ячейки интервала [start, end] по словам битовой карты, отсутствующие страницы пропускаются.
+     */
+    @Override
+    public boolean isFree(long start, long end) {
+        long first = firstSlot(start);
+        long last = lastSlot(end);
+        for (long word = first >> 6; first <= last && word <= last >> 6; word++) {
+            Page page = pages.get(word >> (PAGE_SHIFT - 6));
+            if (page == null) {
+                word = (((word >> (PAGE_SHIFT - 6)) + 1) << (PAGE_SHIFT - 6)) - 1;
+            } else if ((page.occupied[localWord(word)] & rangeMask(word, first, last)) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public List<Long> findOverlaps(long start, long end) {
+        List<Long> result = new ArrayList<>();
+        long first = firstSlot(start);
+        long last = lastSlot(end);
+        for (long word = first >> 6; first <= last && word <= last >> 6; word++) {
+            Page page = pages.get(word >> (PAGE_SHIFT - 6));
+            if (page == null) {
+                word = (((word >> (PAGE_SHIFT - 6)) + 1) << (PAGE_SHIFT - 6)) - 1;
+                continue;
+            }
+            long bits = page.occupied[localWord(word)] & rangeMask(word, first, last);
+            while (bits != 0) {
+                long taskId = page.taskIds[(localWord(word) << 6) + Long.numberOfTrailingZeros(bits)];
+                if (result.isEmpty() || result.get(result.size() - 1) != taskId) {
+                    result.add(taskId);
+                }
+                bits &= bits - 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Ищет самые ранние свободные окна длительностью duration, начиная с after. Переходит от одной серии занятых
+     * ячеек к следующей, пустые страницы не просматриваются.
+     *
+     * @return - время начала окон, по одному на каждый промежуток между сериями занятых ячеек, не более limit.
+     */
+    @Override
+    public List<Long> findFreeWindows(long after, long duration, int limit) {
+        List<Long> result = new ArrayList<>();
+        long candidate = after;
+
+        while (result.size() < limit) {
+            long nextOccupied = nextOccupiedSlot(firstSlot(candidate));
+            if (nextOccupied == Long.MAX_VALUE) {
+                result.add(candidate);
+                break;
+            }
+            if (lastSlot(candidate + duration) < nextOccupied) {
+                result.add(candidate);
+            }
+            candidate = (nextFreeSlot(nextOccupied) - 1) * SLOT_SIZE_IN_MIN + 1;
+        }
+        return result;
+    }
+
+    /**
+     * Считает занятые ячейки, время начала которых попадает в [from, to), каждая ячейка - SLOT_SIZE_IN_MIN минут.
+     * Страницы, целиком попадающие в промежуток, учитываются по occupiedCount без просмотра битовой карты.
+     */
+    @Override
+    public long getOccupiedMinutes(long from, long to) {
+        long first = firstSlot(from);
+        long last = firstSlot(to) - 1;
+        long occupiedSlots = 0;
+        if (first > last) {
+            return 0;
+        }
+        for (Map.Entry<Long, Page> entry : pages.subMap(first >> PAGE_SHIFT, true, last >> PAGE_SHIFT, true).entrySet()) {
+            long pageFirst = entry.getKey() << PAGE_SHIFT;
+            long pageLast = pageFirst + PAGE_SLOTS - 1;
+            Page page = entry.getValue();
+            if (first <= pageFirst && pageLast <= last) {
+                occupiedSlots += page.occupiedCount;
+                continue;
+            }
+            for (long word = Math.max(first, pageFirst) >> 6; word <= Math.min(last, pageLast) >> 6; word++) {
+                occupiedSlots += Long.bitCount(page.occupied[localWord(word)] & rangeMask(word, first, last));
+            }
+        }
+        return occupiedSlots * SLOT_SIZE_IN_MIN;
+    }
+
+    @Override
+    public void add(long start, long end, long taskId) {
+        long first = firstSlot(start);
+        long last = lastSlot(end);
+        if (first > last) {
+            return;
+        }
+        for (long word = first >> 6; word <= last >> 6; word++) {
+            Page page = pages.computeIfAbsent(word >> (PAGE_SHIFT - 6), index -> new Page());
+            int local = localWord(word);
+            long newBits = rangeMask(word, first, last) & ~page.occupied[local];
+            page.occupied[local] |= newBits;
+            page.occupiedCount += Long.bitCount(newBits);
+            int fromSlot = (int) (Math.max(first, word << 6) & (PAGE_SLOTS - 1));
+            int toSlot = (int) (Math.min(last, (word << 6) + 63) & (PAGE_SLOTS - 1));
+            Arrays.fill(page.taskIds, fromSlot, toSlot + 1, taskId);
+        }
+        size++;
+    }
+
+    /**
+     * Освобождает ячейки интервала [start, end], занятые задачей taskId. Ячейки других задач не затрагиваются.
+     * Опустевшие страницы удаляются.
+     */
+    @Override
+    public void remove(long start, long end, long taskId) {
+        long first = firstSlot(start);
+        long last = lastSlot(end);
+        boolean removed = false;
+        for (long word = first >> 6; first <= last && word <= last >> 6; word++) {
+            long pageIndex = word >> (PAGE_SHIFT - 6);
+            Page page = pages.get(pageIndex);
+            if (page == null) {
+                word = ((pageIndex + 1) << (PAGE_SHIFT - 6)) - 1;
+                continue;
+            }
+            int local = localWord(word);
+            long bits = page.occupied[local] & rangeMask(word, first, last);
+            long ownedBits = 0;
+            while (bits != 0) {
+                int slot = (local << 6) + Long.numberOfTrailingZeros(bits);
+                if (page.taskIds[slot] == taskId) {
+                    ownedBits |= 1L << slot;
+                    page.taskIds[slot] = 0;
+                }
+                bits &= bits - 1;
+            }
+            page.occupied[local] &= ~ownedBits;
+            page.occupiedCount -= Long.bitCount(ownedBits);
+            removed |= ownedBits != 0;
+            if (page.occupiedCount == 0) {
+                pages.remove(pageIndex);
+            }
+        }
+        if (removed) {
+            size--;
+        }
+    }
+
+    /**
+     * Освобождает ячейки всех задач из taskIds за один проход по занятым ячейкам существующих страниц.
+     * Опустевшие страницы удаляются. Id, переданные не в LongLinkedHashSet, сначала копируются в него.
+     */
+    @Override
+    public void removeAll(Collection<Long> taskIds) {
+        LongLinkedHashSet ids = taskIds instanceof LongLinkedHashSet set ? set : new LongLinkedHashSet(taskIds);
+        LongLinkedHashSet removedIds = new LongLinkedHashSet();
+        Iterator<Page> pageIterator = pages.values().iterator();
+        while (pageIterator.hasNext()) {
+            Page page = pageIterator.next();
+            for (int local = 0; local < WORDS_PER_PAGE; local++) {
+                long bits = page.occupied[local];
+                long ownedBits = 0;
+                while (bits != 0) {
+                    int slot = (local << 6) + Long.numberOfTrailingZeros(bits);
+                    if (ids.contains(page.taskIds[slot])) {
+                        removedIds.add(page.taskIds[slot]);
+                        ownedBits |= 1L << slot;
+                        page.taskIds[slot] = 0;
+                    }
+                    bits &= bits - 1;
+                }
+                page.occupied[local] &= ~ownedBits;
+                page.occupiedCount -= Long.bitCount(ownedBits);
+            }
+            if (page.occupiedCount == 0) {
+                pageIterator.remove();
+            }
+        }
+        size -= removedIds.size();
+    }
+
+    @Override
+    public void clear() {
+        pages.clear();
+        size = 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    int getPageCount() {
+        return pages.size();
+    }
+
+    private long nextOccupiedSlot(long fromSlot) {
+        Long pageIndex = pages.ceilingKey(fromSlot >> PAGE_SHIFT);
+        while (pageIndex != null) {
+            Page page = pages.get(pageIndex);
+            long firstWord = Math.max(fromSlot >> 6, pageIndex << (PAGE_SHIFT - 6));
+            for (long word = firstWord; word < (pageIndex + 1) << (PAGE_SHIFT - 6); word++) {
+                long bits = page.occupied[localWord(word)];
+                if (word == fromSlot >> 6) {
+                    bits &= -1L << fromSlot;
+                }
+                if (bits != 0) {
+                    return (word << 6) + Long.numberOfTrailingZeros(bits);
+                }
+            }
+            pageIndex = pages.higherKey(pageIndex);
+        }
+        return Long.MAX_VALUE;
+    }
+
+    private long nextFreeSlot(long fromSlot) {
+        for (long word = fromSlot >> 6; ; word++) {
+            Page page = pages.get(word >> (PAGE_SHIFT - 6));
+            if (page == null) {
+                return Math.max(fromSlot, word << 6);
+            }
+            long freeBits = ~page.occupied[localWord(word)];
+            if (word == fromSlot >> 6) {
+                freeBits &= -1L << fromSlot;
+            }
+            if (freeBits != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(freeBits);
+            }
+        }
+    }
+
+    private static long firstSlot(long start) {
+        return Math.floorDiv(start + SLOT_SIZE_IN_MIN - 1, SLOT_SIZE_IN_MIN);
+    }
+
+    private static long lastSlot(long end) {
+        return Math.floorDiv(end, SLOT_SIZE_IN_MIN);
+    }
+
+    private static int localWord(long word) {
+        return (int) (word & (WORDS_PER_PAGE - 1));
+    }
+
+    private static long rangeMask(long word, long first, long last) {
+        long mask = -1L;
+        if (word == first >> 6) {
+            mask &= -1L << first;
+        }
+        if (word == last >> 6) {
+            mask &= -1L >>> (63 - (last & 63));
+        }
+        return mask;
+    }
+
+    static class Page {
+        final long[] occupied = new long[WORDS_PER_PAGE];
+        final long[] taskIds = new long[PAGE_SLOTS];
+        int occupiedCount;
+    }
+}
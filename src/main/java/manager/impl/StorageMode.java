@@ -0,0 +1,6 @@
+package manager.impl;
+
+public enum StorageMode {
+    SNAPSHOT,
+    JOURNAL
+}
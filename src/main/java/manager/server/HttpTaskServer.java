@@ -3,22 +3,32 @@ package manager.server;
 import com.google.gson.*;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpServer;
+import manager.api.HistoryEntry;
 import manager.impl.HttpTaskManager;
+import manager.impl.PartitionedHistoryManager;
 import task.EpicTask;
 import task.SubTask;
 import task.Task;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.HttpURLConnection;
 import java.net.InetSocketAddress;
+import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
@@ -26,8 +36,18 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 
 public class HttpTaskServer {
     public static final int PORT = 8080;
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final Set<ChronoUnit> UTILIZATION_BUCKETS =
+            Set.of(ChronoUnit.HOURS, ChronoUnit.DAYS, ChronoUnit.WEEKS, ChronoUnit.MONTHS);
+    /**
+     * Заголовок с именем или токеном пользователя. Если он задан, просмотры задач и /tasks/history
+     * относятся к личной истории пользователя.
+     */
+    public static final String USER_HEADER = "X-User";
     private final HttpServer httpServer;
     private final HttpTaskManager httpTaskManager;
+    private final PartitionedHistoryManager userHistory;
     private GsonBuilder gsonBuilder = new GsonBuilder()
             .registerTypeAdapter(LocalDateTime.class, (JsonSerializer<LocalDateTime>)
                     (src, typeOfSrc, context) -> new JsonPrimitive(src.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)))
@@ -40,9 +60,14 @@ public class HttpTaskServer {
         return httpTaskManager;
     }
 
+    public PartitionedHistoryManager getUserHistory() {
+        return userHistory;
+    }
+
     public HttpTaskServer(HttpTaskManager httpTaskManager) throws IOException {
         gson = gsonBuilder.create();
         this.httpTaskManager = httpTaskManager;
+        userHistory = new PartitionedHistoryManager(this::findTask);
         httpServer = HttpServer.create(new InetSocketAddress("localhost", PORT), 0);
         httpServer.createContext("/", this::handleTaskRequestsByMethod);
         httpServer.start();
@@ -71,9 +96,13 @@ public class HttpTaskServer {
         switch (path) {
             case "/tasks/task" -> handleGetTasks(exchange);
             case "/tasks/subtask" -> handleGetSubTasks(exchange);
+            case "/tasks/subtask/epic" -> handleGetSubTasksByEpicId(exchange);
             case "/tasks/epic" -> handleGetEpicTasks(exchange);
             case "/tasks" -> handleAllTasksRequests(exchange);
             case "/tasks/history" -> handleHistoryRequests(exchange);
+            case "/tasks/slots" -> handleGetFreeSlots(exchange);
+            case "/tasks/utilization" -> handleGetUtilization(exchange);
+            case "/tasks/upcoming" -> handleGetUpcoming(exchange);
 
             default -> {
                 exchange.sendResponseHeaders(HttpURLConnection.HTTP_NOT_FOUND, 0);
@@ -102,6 +131,23 @@ public class HttpTaskServer {
         sendText(exchange, response, HttpURLConnection.HTTP_OK);
     }
 
+    private void handleGetSubTasksByEpicId(HttpExchange exchange) throws IOException {
+        Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+        long epicId;
+        try {
+            epicId = Long.parseLong(params.get("id"));
+        } catch (RuntimeException e) {
+            exchange.sendResponseHeaders(HttpURLConnection.HTTP_BAD_REQUEST, -1);
+            System.out.println(e.getMessage());
+            return;
+        }
+        if (!httpTaskManager.getEpicTasks().containsKey(epicId)) {
+            exchange.sendResponseHeaders(HttpURLConnection.HTTP_NOT_FOUND, -1);
+            return;
+        }
+        sendJson(exchange, httpTaskManager.getSubTasksByEpicId(epicId), HttpURLConnection.HTTP_OK);
+    }
+
     private void handleGetEpicTasks(HttpExchange exchange) throws IOException {
         Map<Long, EpicTask> epicTasks = httpTaskManager.getEpicTasks();
         if (epicTasks == null || epicTasks.isEmpty()) {
@@ -114,7 +160,25 @@ public class HttpTaskServer {
     }
 
     private void handleAllTasksRequests(HttpExchange exchange) throws IOException {
-        List<Task> tasks = httpTaskManager.getOrderedTasksByStartTime();
+        Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+        if (params.containsKey("after") || params.containsKey("limit")) {
+            handleGetTasksPage(exchange, params);
+            return;
+        }
+        List<Task> tasks;
+        try {
+            if (params.containsKey("from") || params.containsKey("to")) {
+                LocalDateTime from = LocalDateTime.parse(params.get("from"), DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+                LocalDateTime to = LocalDateTime.parse(params.get("to"), DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+                tasks = httpTaskManager.getOrderedTasksByStartTime(from, to);
+            } else {
+                tasks = httpTaskManager.getOrderedTasksByStartTime();
+            }
+        } catch (RuntimeException e) {
+            exchange.sendResponseHeaders(HttpURLConnection.HTTP_BAD_REQUEST, -1);
+            System.out.println(e.getMessage());
+            return;
+        }
         if (tasks == null || tasks.isEmpty()) {
             exchange.sendResponseHeaders(HttpURLConnection.HTTP_NO_CONTENT, -1);
             return;
@@ -123,8 +187,72 @@ public class HttpTaskServer {
         sendText(exchange, response, HttpURLConnection.HTTP_OK);
     }
 
+    /**
+     * Отдаёт страницу задач по возрастанию startTime, следующую за курсором after=startTime,id
+     * (startTime пустой для задач без времени). Без after отдаётся первая страница.
+     * В ответе next - курсор следующей страницы или null, если задач больше нет.
+     */
+    private void handleGetTasksPage(HttpExchange exchange, Map<String, String> params) throws IOException {
+        TaskPage page;
+        try {
+            int limit = Math.min(params.containsKey("limit") ? Integer.parseInt(params.get("limit")) : DEFAULT_PAGE_SIZE,
+                    MAX_PAGE_SIZE);
+            if (limit < 1) {
+                throw new RuntimeException("Not valid page parameters");
+            }
+            List<Task> tasks;
+            if (params.containsKey("after")) {
+                String[] cursor = params.get("after").split(",", 2);
+                LocalDateTime startTime = cursor[0].isBlank()
+                        ? null
+                        : LocalDateTime.parse(cursor[0], DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+                tasks = httpTaskManager.getTasksAfter(startTime, Long.parseLong(cursor[1]), limit + 1);
+            } else {
+                tasks = httpTaskManager.getTasksAfter(LocalDateTime.MIN, Long.MIN_VALUE, limit + 1);
+            }
+            page = new TaskPage(tasks, limit);
+        } catch (RuntimeException e) {
+            exchange.sendResponseHeaders(HttpURLConnection.HTTP_BAD_REQUEST, -1);
+            System.out.println(e.getMessage());
+            return;
+        }
+        sendJson(exchange, page, HttpURLConnection.HTTP_OK);
+    }
+
+    /**
+     * Без параметров возвращает всю историю от ранних просмотров к последним.
+     * С параметрами limit и/или before возвращает страницу от последних просмотров к ранним:
+     * before - номер просмотра из поля next предыдущей страницы. Повторный просмотр или удаление задачи
+     * между запросами не сдвигает следующую страницу.
+     * Если задан заголовок USER_HEADER, возвращается личная история пользователя.
+     */
     private void handleHistoryRequests(HttpExchange exchange) throws IOException {
-        List<Task> history = httpTaskManager.historyManager.getHistory();
+        Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+        String user = exchange.getRequestHeaders().getFirst(USER_HEADER);
+        if (params.containsKey("limit") || params.containsKey("before")) {
+            HistoryPage page;
+            try {
+                int limit = Math.min(params.containsKey("limit") ? Integer.parseInt(params.get("limit")) : DEFAULT_PAGE_SIZE,
+                        MAX_PAGE_SIZE);
+                if (limit < 1) {
+                    throw new RuntimeException("Not valid page parameters");
+                }
+                long before = params.containsKey("before") ? Long.parseLong(params.get("before")) : Long.MAX_VALUE;
+                List<HistoryEntry> entries = user == null
+                        ? httpTaskManager.historyManager.getHistoryBefore(before, limit + 1)
+                        : userHistory.getHistoryBefore(user, before, limit + 1);
+                page = new HistoryPage(entries, limit);
+            } catch (RuntimeException e) {
+                exchange.sendResponseHeaders(HttpURLConnection.HTTP_BAD_REQUEST, -1);
+                System.out.println(e.getMessage());
+                return;
+            }
+            sendJson(exchange, page, HttpURLConnection.HTTP_OK);
+            return;
+        }
+        List<Task> history = user == null
+                ? httpTaskManager.historyManager.getHistory()
+                : userHistory.getHistory(user);
         if (history == null || history.isEmpty()) {
             exchange.sendResponseHeaders(HttpURLConnection.HTTP_NO_CONTENT, -1);
             return;
@@ -133,6 +261,81 @@ public class HttpTaskServer {
         sendText(exchange, response, HttpURLConnection.HTTP_OK);
     }
 
+    private void handleGetFreeSlots(HttpExchange exchange) throws IOException {
+        Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+        List<LocalDateTime> freeSlots;
+        try {
+            LocalDateTime after = params.containsKey("after")
+                    ? LocalDateTime.parse(params.get("after"), DateTimeFormatter.ISO_LOCAL_DATE_TIME)
+                    : LocalDateTime.now();
+            long duration = Long.parseLong(params.get("duration"));
+            int limit = params.containsKey("limit") ? Integer.parseInt(params.get("limit")) : 1;
+            freeSlots = httpTaskManager.getFreeSlots(after, duration, limit, params.get("assignee"));
+        } catch (RuntimeException e) {
+            exchange.sendResponseHeaders(HttpURLConnection.HTTP_BAD_REQUEST, -1);
+            System.out.println(e.getMessage());
+            return;
+        }
+        String response = gson.toJson(freeSlots);
+        sendText(exchange, response, HttpURLConnection.HTTP_OK);
+    }
+
+    private void handleGetUtilization(HttpExchange exchange) throws IOException {
+        Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+        Map<LocalDateTime, Long> utilization;
+        try {
+            LocalDateTime from = LocalDateTime.parse(params.get("from"), DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+            LocalDateTime to = LocalDateTime.parse(params.get("to"), DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+            ChronoUnit bucket = ChronoUnit.valueOf(params.getOrDefault("bucket", "day").toUpperCase(Locale.ROOT) + "S");
+            if (!UTILIZATION_BUCKETS.contains(bucket)) {
+                throw new RuntimeException("Not valid utilization parameters");
+            }
+            utilization = httpTaskManager.getUtilization(from, to, bucket, params.get("assignee"));
+        } catch (RuntimeException e) {
+            exchange.sendResponseHeaders(HttpURLConnection.HTTP_BAD_REQUEST, -1);
+            System.out.println(e.getMessage());
+            return;
+        }
+        String response = gson.toJson(utilization);
+        sendText(exchange, response, HttpURLConnection.HTTP_OK);
+    }
+
+    private void handleGetUpcoming(HttpExchange exchange) throws IOException {
+        Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+        List<Task> upcoming;
+        try {
+            LocalDateTime now = params.containsKey("now")
+                    ? LocalDateTime.parse(params.get("now"), DateTimeFormatter.ISO_LOCAL_DATE_TIME)
+                    : LocalDateTime.now();
+            int k = params.containsKey("k") ? Integer.parseInt(params.get("k")) : 10;
+            upcoming = httpTaskManager.getUpcoming(now, Math.min(k, MAX_PAGE_SIZE));
+        } catch (RuntimeException e) {
+            exchange.sendResponseHeaders(HttpURLConnection.HTTP_BAD_REQUEST, -1);
+            System.out.println(e.getMessage());
+            return;
+        }
+        String response = gson.toJson(upcoming);
+        sendText(exchange, response, HttpURLConnection.HTTP_OK);
+    }
+
+    /**
+     * Разбирает query строку запроса в исходном виде (getRawQuery) и декодирует каждый ключ и значение один раз,
+     * поэтому закодированные '&' и '=' внутри значения не разбивают параметр.
+     */
+    private Map<String, String> parseQuery(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query == null || query.isBlank()) {
+            return params;
+        }
+        for (String param : query.split("&")) {
+            String[] keyValue = param.split("=", 2);
+            if (keyValue.length == 2) {
+                params.put(URLDecoder.decode(keyValue[0], UTF_8), URLDecoder.decode(keyValue[1], UTF_8));
+            }
+        }
+        return params;
+    }
+
     private void handleGetTaskById(HttpExchange exchange) throws IOException {
         long taskId = Long.parseLong(exchange.getRequestURI().getQuery().substring(3));
         System.out.println(taskId);
@@ -148,6 +351,10 @@ public class HttpTaskServer {
         }
 
         if (task.isPresent()) {
+            String user = exchange.getRequestHeaders().getFirst(USER_HEADER);
+            if (user != null) {
+                userHistory.add(user, taskId);
+            }
             String response = gson.toJson(task.get());
             sendText(exchange, response, HttpURLConnection.HTTP_OK);
         } else {
@@ -155,6 +362,14 @@ public class HttpTaskServer {
         }
     }
 
+    private Task findTask(long id) {
+        if (httpTaskManager.getTasks().containsKey(id)) {
+            return httpTaskManager.getTasks().get(id);
+        }
+        Task subTask = httpTaskManager.getSubTasks().get(id);
+        return subTask != null ? subTask : httpTaskManager.getEpicTasks().get(id);
+    }
+
     private void handlePostRequestByPath(HttpExchange exchange) throws IOException {
         String path = exchange.getRequestURI().getPath();
 
@@ -179,7 +394,13 @@ public class HttpTaskServer {
             exchange.sendResponseHeaders(HttpURLConnection.HTTP_BAD_REQUEST, -1);
         } else {
             Task task = gson.fromJson(body, Task.class);
-            httpTaskManager.addNewTask(task);
+            try {
+                httpTaskManager.addNewTask(task);
+            } catch (RuntimeException e) {
+                exchange.sendResponseHeaders(HttpURLConnection.HTTP_BAD_REQUEST, -1);
+                System.out.println(e.getMessage());
+                return;
+            }
             String response = gson.toJson(task);
             sendText(exchange, response, HttpURLConnection.HTTP_CREATED);
         }
@@ -194,7 +415,13 @@ public class HttpTaskServer {
             exchange.sendResponseHeaders(HttpURLConnection.HTTP_BAD_REQUEST, -1);
         } else {
             SubTask subtask = gson.fromJson(body, SubTask.class);
-            httpTaskManager.addNewSubTask(subtask);
+            try {
+                httpTaskManager.addNewSubTask(subtask);
+            } catch (RuntimeException e) {
+                exchange.sendResponseHeaders(HttpURLConnection.HTTP_BAD_REQUEST, -1);
+                System.out.println(e.getMessage());
+                return;
+            }
             String response = gson.toJson(subtask);
             sendText(exchange, response, HttpURLConnection.HTTP_CREATED);
         }
@@ -209,7 +436,13 @@ public class HttpTaskServer {
             exchange.sendResponseHeaders(HttpURLConnection.HTTP_BAD_REQUEST, -1);
         } else {
             EpicTask epicTask = gson.fromJson(body, EpicTask.class);
-            httpTaskManager.addNewEpicTask(epicTask);
+            try {
+                httpTaskManager.addNewEpicTask(epicTask);
+            } catch (RuntimeException e) {
+                exchange.sendResponseHeaders(HttpURLConnection.HTTP_BAD_REQUEST, -1);
+                System.out.println(e.getMessage());
+                return;
+            }
             String response = gson.toJson(epicTask);
             sendText(exchange, response, HttpURLConnection.HTTP_CREATED);
         }
@@ -354,4 +587,50 @@ public class HttpTaskServer {
         h.sendResponseHeaders(rCode, resp.length);
         h.getResponseBody().write(resp);
     }
+
+    /**
+     * Пишет src в тело ответа по мере сериализации, без промежуточной строки (chunked transfer encoding).
+     */
+    protected void sendJson(HttpExchange h, Object src, int rCode) throws IOException {
+        h.getResponseHeaders().add("Content-Type", "application/json");
+        h.sendResponseHeaders(rCode, 0);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(h.getResponseBody(), UTF_8));
+        gson.toJson(src, writer);
+        writer.flush();
+    }
+
+    private static class TaskPage {
+        private final List<Task> tasks;
+        private final String next;
+
+        /**
+         * @param tasks - до limit + 1 задач, лишняя задача означает, что есть следующая страница.
+         */
+        TaskPage(List<Task> tasks, int limit) {
+            this.tasks = tasks.size() > limit ? tasks.subList(0, limit) : tasks;
+            if (tasks.size() > limit) {
+                Task last = this.tasks.get(limit - 1);
+                String startTime = last.getStartTime() == null
+                        ? ""
+                        : last.getStartTime().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+                this.next = startTime + "," + last.getId();
+            } else {
+                this.next = null;
+            }
+        }
+    }
+
+    private static class HistoryPage {
+        private final List<Task> tasks;
+        private final Long next;
+
+        /**
+         * @param entries - до limit + 1 записей, лишняя запись означает, что есть следующая страница.
+         */
+        HistoryPage(List<HistoryEntry> entries, int limit) {
+            List<HistoryEntry> pageEntries = entries.size() > limit ? entries.subList(0, limit) : entries;
+            this.tasks = pageEntries.stream().map(HistoryEntry::task).toList();
+            this.next = entries.size() > limit ? pageEntries.get(limit - 1).viewNumber() : null;
+        }
+    }
 }
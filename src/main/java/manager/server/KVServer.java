@@ -22,6 +22,7 @@ public class KVServer {
         server.createContext("/register", this::register);
         server.createContext("/save", this::save);
         server.createContext("/load", this::load);
+        server.createContext("/append", this::append);
     }
 
     private void load(HttpExchange h) throws IOException {
@@ -88,6 +89,39 @@ public class KVServer {
         }
     }
 
+    private void append(HttpExchange h) throws IOException {
+        try {
+            System.out.println("\n/append");
+            if (!hasAuth(h)) {
+                System.out.println("Запрос неавторизован, нужен параметр в query API_TOKEN со значением апи-ключа");
+                h.sendResponseHeaders(403, 0);
+                return;
+            }
+            if ("POST".equals(h.getRequestMethod())) {
+                String key = h.getRequestURI().getPath().substring("/append/".length());
+                if (key.isEmpty()) {
+                    System.out.println("Key для дописывания пустой. key указывается в пути: /append/{key}");
+                    h.sendResponseHeaders(400, 0);
+                    return;
+                }
+                String value = readText(h);
+                if (value.isEmpty()) {
+                    System.out.println("Value для дописывания пустой. value указывается в теле запроса");
+                    h.sendResponseHeaders(400, 0);
+                    return;
+                }
+                data.merge(key, value, String::concat);
+                System.out.println("Значение для ключа " + key + " успешно дописано!");
+                h.sendResponseHeaders(200, 0);
+            } else {
+                System.out.println("/append ждёт POST-запрос, а получил: " + h.getRequestMethod());
+                h.sendResponseHeaders(405, 0);
+            }
+        } finally {
+            h.close();
+        }
+    }
+
     private void register(HttpExchange h) throws IOException {
         try {
             System.out.println("\n/register");
@@ -55,6 +55,23 @@ public class KVTaskClient {
         }
     }
 
+    public void append(String key, String text) throws IOException {
+        try {
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create(URL + "append/" + key + "?API_TOKEN=" + apiToken))
+                    .POST(HttpRequest.BodyPublishers.ofString(text))
+                    .build();
+
+            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+
+            if (response.statusCode() != 200) {
+                throw new RuntimeException("Плохой ответ, не 200, а: " + response.statusCode());
+            }
+        } catch (IOException | InterruptedException e) {
+            throw new RuntimeException("Не получается сделать запрос " + e.getMessage());
+        }
+    }
+
     public String load(String key) throws IOException {
         try {
             HttpRequest request = HttpRequest.newBuilder()
@@ -1,25 +1,65 @@
 package task;
 
-import java.util.ArrayList;
-import java.util.List;
+import utils.LongLinkedHashSet;
+
+import java.util.Collection;
 
 public class EpicTask extends Task {
-    private List<Long> subTasksId = new ArrayList<>();
+    private LongLinkedHashSet subTasksId = new LongLinkedHashSet();
+    private long idParentEpic;
+    private LongLinkedHashSet childEpicsId = new LongLinkedHashSet();
 
     public EpicTask(String name, String description) {
         super(name, description);
     }
 
-    public List<Long> getSubTasksId() {
+    public LongLinkedHashSet getSubTasksId() {
+        if (subTasksId == null) {
+            subTasksId = new LongLinkedHashSet();
+        }
         return subTasksId;
     }
 
-    public void setSubTasksId(List<Long> subTasksId) {
-        this.subTasksId = subTasksId;
+    public void setSubTasksId(Collection<Long> subTasksId) {
+        this.subTasksId = new LongLinkedHashSet(subTasksId);
+    }
+
+    public void addSubTask(long idSubtask) {
+        getSubTasksId().add(idSubtask);
+    }
+
+    public void removeSubTask(long idSubtask) {
+        getSubTasksId().remove(idSubtask);
+    }
+
+    /**
+     * @return - Id родительского эпика или 0, если эпик верхнего уровня.
+     */
+    public long getIdParentEpic() {
+        return idParentEpic;
+    }
+
+    public void setIdParentEpic(long idParentEpic) {
+        this.idParentEpic = idParentEpic;
+    }
+
+    public LongLinkedHashSet getChildEpicsId() {
+        if (childEpicsId == null) {
+            childEpicsId = new LongLinkedHashSet();
+        }
+        return childEpicsId;
+    }
+
+    public void setChildEpicsId(Collection<Long> childEpicsId) {
+        this.childEpicsId = new LongLinkedHashSet(childEpicsId);
+    }
+
+    public void addChildEpic(long idChildEpic) {
+        getChildEpicsId().add(idChildEpic);
     }
 
-    public void addSubTask(Long idSubtask) {
-        subTasksId.add(idSubtask);
+    public void removeChildEpic(long idChildEpic) {
+        getChildEpicsId().remove(idChildEpic);
     }
 
     @Override
@@ -36,6 +76,9 @@ public class EpicTask extends Task {
                 ", status=" + status +
                 ", duration=" + duration +
                 ", startTime=" + startTime +
+                ", assignee='" + assignee + '\'' +
+                ", recurrence=" + recurrence +
+                ", idParentEpic=" + idParentEpic +
                 '}';
     }
 }
@@ -0,0 +1,62 @@
+package task;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Правило повторения задачи: каждые intervalDays суток от startTime задачи, пока время начала повторения
+ * не позже until.
+ */
+public class Recurrence {
+    private final long intervalDays;
+    private final LocalDateTime until;
+
+    public Recurrence(long intervalDays, LocalDateTime until) {
+        if (intervalDays <= 0 || until == null) {
+            throw new RuntimeException("Not valid recurrence parameters");
+        }
+        this.intervalDays = intervalDays;
+        this.until = until;
+    }
+
+    public static Recurrence daily(LocalDateTime until) {
+        return new Recurrence(1, until);
+    }
+
+    public static Recurrence weekly(LocalDateTime until) {
+        return new Recurrence(7, until);
+    }
+
+    public static Recurrence everyDays(long intervalDays, LocalDateTime until) {
+        return new Recurrence(intervalDays, until);
+    }
+
+    public long getIntervalDays() {
+        return intervalDays;
+    }
+
+    public LocalDateTime getUntil() {
+        return until;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Recurrence that = (Recurrence) o;
+        return intervalDays == that.intervalDays && Objects.equals(until, that.until);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(intervalDays, until);
+    }
+
+    @Override
+    public String toString() {
+        return "Recurrence{" +
+                "intervalDays=" + intervalDays +
+                ", until=" + until +
+                '}';
+    }
+}
@@ -38,6 +38,8 @@ public class SubTask extends Task {
                 ", status=" + status +
                 ", duration=" + duration +
                 ", startTime=" + startTime +
+                ", assignee='" + assignee + '\'' +
+                ", recurrence=" + recurrence +
                 '}';
     }
 }
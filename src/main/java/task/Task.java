@@ -1,6 +1,7 @@
 package task;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.Objects;
 
 public class Task {
@@ -10,6 +11,9 @@ public class Task {
     protected TaskStatus status;
     protected long duration;
     protected LocalDateTime startTime;
+    protected String assignee;
+    protected Recurrence recurrence;
+    private transient StartMinutes startMinutes;
 
     public Task(String name, String description) {
         this.name = name;
@@ -75,6 +79,48 @@ public class Task {
 
     public void setStartTime(LocalDateTime startTime) {
         this.startTime = startTime;
+        getStartMinutes();
+    }
+
+    /**
+     * Время начала в минутах от начала эпохи по UTC. Пересчитывается, только когда startTime заменён
+     * другим объектом, поэтому работает и для задач, созданных Gson в обход конструкторов и сеттеров.
+     * Кэш хранится одним неизменяемым объектом: поток, читающий задачу без синхронизации, видит либо
+     * старую пару (startTime, минуты) и пересчитывает её, либо новую, но никогда не их смесь.
+     *
+     * @return - время начала в минутах или Long.MIN_VALUE, если startTime не задано.
+     */
+    public long getStartMinutes() {
+        LocalDateTime source = startTime;
+        if (source == null) {
+            return Long.MIN_VALUE;
+        }
+        StartMinutes cached = startMinutes;
+        if (cached == null || cached.source() != source) {
+            cached = new StartMinutes(source, Math.floorDiv(source.toEpochSecond(ZoneOffset.UTC), 60));
+            startMinutes = cached;
+        }
+        return cached.minutes();
+    }
+
+    public long getEndMinutes() {
+        return getStartMinutes() + duration;
+    }
+
+    public String getAssignee() {
+        return assignee;
+    }
+
+    public void setAssignee(String assignee) {
+        this.assignee = assignee;
+    }
+
+    public Recurrence getRecurrence() {
+        return recurrence;
+    }
+
+    public void setRecurrence(Recurrence recurrence) {
+        this.recurrence = recurrence;
     }
 
     public LocalDateTime getEndTime() {
@@ -88,12 +134,13 @@ public class Task {
         Task task = (Task) o;
         return id == task.id && duration == task.duration && Objects.equals(name, task.name)
                 && Objects.equals(description, task.description) && status == task.status
-                && Objects.equals(startTime, task.startTime);
+                && Objects.equals(startTime, task.startTime) && Objects.equals(assignee, task.assignee)
+                && Objects.equals(recurrence, task.recurrence);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, name, description, status, duration, startTime);
+        return Objects.hash(id, name, description, status, duration, startTime, assignee, recurrence);
     }
 
     @Override
@@ -105,6 +152,14 @@ public class Task {
                 ", status=" + status +
                 ", duration=" + duration +
                 ", startTime=" + startTime +
+                ", assignee='" + assignee + '\'' +
+                ", recurrence=" + recurrence +
                 '}';
     }
+
+    /**
+     * Время начала в минутах вместе с объектом startTime, из которого оно посчитано.
+     */
+    private record StartMinutes(LocalDateTime source, long minutes) {
+    }
 }
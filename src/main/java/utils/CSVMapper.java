@@ -13,13 +13,19 @@ import java.util.Optional;
 
 
 public class CSVMapper {
-    public static final String COLUMN_HEADER = "id,type,name,status,description,duration,start_Time,epic";
+    public static final String COLUMN_HEADER =
+            "id,type,name,status,description,duration,start_Time,epic,assignee,recurrence";
+    public static final String COLUMN_HEADER_WITHOUT_RECURRENCE =
+            "id,type,name,status,description,duration,start_Time,epic,assignee";
+    public static final String COLUMN_HEADER_WITHOUT_ASSIGNEE = "id,type,name,status,description,duration,start_Time,epic";
 
     private CSVMapper() {
     }
 
     /**
-     * Преобразует объект типа Task в строку в формате CSV.
+     * Преобразует объект типа Task в строку в формате CSV. Столбцы assignee и recurrence добавляются, только если
+     * они заданы. Повторение записывается как "интервал в сутках/until". Для вложенного эпика в столбце epic
+     * записывается Id родительского эпика.
      *
      * @param task объект, который будет преобразовываться в строку.
      * @return строку в формате CSV.
@@ -33,14 +39,28 @@ public class CSVMapper {
                 .map(time -> time.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")))
                 .orElse(" ");
 
-        if (task.getTaskType() == TaskType.SUBTASK) {
-            String idEpic = String.valueOf(((SubTask) task).getIdEpicTask());
-            return String.join(",", id, type, task.getName(), status, task.getDescription(), duration,
+        String taskInString;
+        boolean hasEpicColumn = task.getTaskType() == TaskType.SUBTASK
+                || task.getTaskType() == TaskType.EPICTASK && ((EpicTask) task).getIdParentEpic() != 0;
+        if (hasEpicColumn) {
+            String idEpic = String.valueOf(task.getTaskType() == TaskType.SUBTASK
+                    ? ((SubTask) task).getIdEpicTask()
+                    : ((EpicTask) task).getIdParentEpic());
+            taskInString = String.join(",", id, type, task.getName(), status, task.getDescription(), duration,
                     startTime, idEpic);
         } else {
-            return String.join(",", id, type, task.getName(), status, task.getDescription(), duration,
+            taskInString = String.join(",", id, type, task.getName(), status, task.getDescription(), duration,
                     startTime);
         }
+        if (task.getAssignee() == null && task.getRecurrence() == null) {
+            return taskInString;
+        }
+        String separatorForEpicColumn = hasEpicColumn ? "," : ", ,";
+        taskInString += separatorForEpicColumn + Optional.ofNullable(task.getAssignee()).orElse(" ");
+        if (task.getRecurrence() == null) {
+            return taskInString;
+        }
+        return taskInString + "," + task.getRecurrence().getIntervalDays() + "/" + task.getRecurrence().getUntil();
     }
 
     /**
@@ -73,7 +93,8 @@ public class CSVMapper {
             List<String> lines = Files.readAllLines(Paths.get(path));
             if (lines.isEmpty()) {
                 throw new NotValidFileException("File is Empty");
-            } else if (lines.get(0).equals(COLUMN_HEADER)) {
+            } else if (lines.get(0).equals(COLUMN_HEADER) || lines.get(0).equals(COLUMN_HEADER_WITHOUT_RECURRENCE)
+                    || lines.get(0).equals(COLUMN_HEADER_WITHOUT_ASSIGNEE)) {
                 return lines;
             } else {
                 throw new NotValidFileException("Not valid file format");
@@ -99,15 +120,23 @@ public class CSVMapper {
             TaskStatus status = TaskStatus.valueOf(taskAttributes[3]);
             String description = taskAttributes[4];
             long duration = Long.parseLong(taskAttributes[5]);
-            LocalDateTime startTime = taskAttributes[6].isBlank() ? null : LocalDateTime.parse(taskAttributes[6]);
+            LocalDateTime startTime = taskAttributes[6].isBlank() ? null : parseStartTime(taskAttributes[6]);
+            String assignee = taskAttributes.length > 8 && !taskAttributes[8].isBlank() ? taskAttributes[8] : null;
+            Recurrence recurrence = taskAttributes.length > 9 && !taskAttributes[9].isBlank()
+                    ? recurrenceFromString(taskAttributes[9])
+                    : null;
             Task task;
             switch (type) {
                 case EPICTASK:
                     task = new EpicTask(name, description);
+                    if (taskAttributes.length > 7 && !taskAttributes[7].isBlank()) {
+                        ((EpicTask) task).setIdParentEpic(Long.parseLong(taskAttributes[7]));
+                    }
                     task.setId(id);
                     task.setStatus(status);
                     task.setDuration(duration);
                     task.setStartTime(startTime);
+                    task.setAssignee(assignee);
                     return Optional.of(task);
                 case TASK:
                     task = new Task(name, description);
@@ -115,6 +144,8 @@ public class CSVMapper {
                     task.setStatus(status);
                     task.setDuration(duration);
                     task.setStartTime(startTime);
+                    task.setAssignee(assignee);
+                    task.setRecurrence(recurrence);
                     return Optional.of(task);
                 case SUBTASK:
                     long idEpic = Long.parseLong(taskAttributes[7]);
@@ -123,12 +154,27 @@ public class CSVMapper {
                     task.setStatus(status);
                     task.setDuration(duration);
                     task.setStartTime(startTime);
+                    task.setAssignee(assignee);
                     return Optional.of(task);
             }
         }
         return Optional.empty();
     }
 
+    /**
+     * taskToString пишет время через пробел, а в файлах прежнего формата оно записано в ISO. Читаются оба формата.
+     */
+    private static LocalDateTime parseStartTime(String value) {
+        return value.contains("T")
+                ? LocalDateTime.parse(value)
+                : LocalDateTime.parse(value, DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+    }
+
+    private static Recurrence recurrenceFromString(String value) {
+        String[] recurrenceAttributes = value.split("/");
+        return new Recurrence(Long.parseLong(recurrenceAttributes[0]), LocalDateTime.parse(recurrenceAttributes[1]));
+    }
+
     /**
      * tasksInlines содержит историю в последнем элементе, поэтому метод парсит в тип Long именно lastLineIsHistory.
      *
@@ -0,0 +1,146 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * Отображение long в int на открытой адресации с линейным пробированием. Ключи и значения хранятся
+ * в массивах без упаковки, при удалении следующие записи цепочки сдвигаются назад, поэтому надгробий нет
+ * и чтение, запись и удаление после прогрева не выделяют память.
+ */
+public class LongIntHashMap {
+    private static final int DEFAULT_CAPACITY = 8;
+    private long[] keys;
+    private int[] values;
+    private boolean[] used;
+    private int size;
+
+    public LongIntHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize - число ключей, при котором таблица ещё не будет увеличиваться.
+     */
+    public LongIntHashMap(int expectedSize) {
+        allocate(Math.max(DEFAULT_CAPACITY, expectedSize));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(long key) {
+        return find(key) >= 0;
+    }
+
+    /**
+     * @return - значение по ключу или missingValue, если ключа нет.
+     */
+    public int get(long key, int missingValue) {
+        int index = find(key);
+        return index < 0 ? missingValue : values[index];
+    }
+
+    /**
+     * @return - предыдущее значение по ключу или missingValue, если ключа не было.
+     */
+    public int put(long key, int value, int missingValue) {
+        int index = indexOf(key);
+        while (used[index]) {
+            if (keys[index] == key) {
+                int oldValue = values[index];
+                values[index] = value;
+                return oldValue;
+            }
+            index = (index + 1) & (keys.length - 1);
+        }
+        used[index] = true;
+        keys[index] = key;
+        values[index] = value;
+        if (++size * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        return missingValue;
+    }
+
+    /**
+     * @return - удалённое значение или missingValue, если ключа не было.
+     */
+    public int remove(long key, int missingValue) {
+        int index = find(key);
+        if (index < 0) {
+            return missingValue;
+        }
+        int oldValue = values[index];
+        shiftBack(index);
+        size--;
+        return oldValue;
+    }
+
+    public void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    private int find(long key) {
+        int index = indexOf(key);
+        while (used[index]) {
+            if (keys[index] == key) {
+                return index;
+            }
+            index = (index + 1) & (keys.length - 1);
+        }
+        return -1;
+    }
+
+    /**
+     * Заполняет освободившуюся ячейку записями, которые попали дальше по цепочке из-за коллизий,
+     * чтобы поиск не обрывался на пустой ячейке посреди цепочки.
+     */
+    private void shiftBack(int hole) {
+        int mask = keys.length - 1;
+        int index = hole;
+        while (true) {
+            index = (index + 1) & mask;
+            if (!used[index]) {
+                break;
+            }
+            int home = indexOf(keys[index]);
+            if (((index - home) & mask) >= ((index - hole) & mask)) {
+                keys[hole] = keys[index];
+                values[hole] = values[index];
+                hole = index;
+            }
+        }
+        used[hole] = false;
+    }
+
+    private int indexOf(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & (keys.length - 1);
+    }
+
+    private void allocate(int expectedSize) {
+        int tableSize = Integer.highestOneBit(expectedSize * 2 - 1) << 1;
+        keys = new long[tableSize];
+        values = new int[tableSize];
+        used = new boolean[tableSize];
+    }
+
+    private void resize(int tableSize) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(tableSize / 2);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                put(oldKeys[i], oldValues[i], 0);
+            }
+        }
+    }
+}
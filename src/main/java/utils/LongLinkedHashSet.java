@@ -0,0 +1,263 @@
+package utils;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Множество чисел типа long в порядке добавления. Значения хранятся в массивах без упаковки в Long,
+ * добавление, удаление и проверка наличия выполняются за O(1), обход - за O(size).
+ * Записи связаны в двусвязный список порядка добавления, корзины хеш-таблицы - в односвязные цепочки,
+ * освободившиеся записи используются повторно.
+ */
+public class LongLinkedHashSet extends AbstractSet<Long> {
+    private static final int NONE = -1;
+    private static final int DEFAULT_CAPACITY = 4;
+    private long[] keys;
+    private int[] before;
+    private int[] after;
+    private int[] nextInBucket;
+    private int[] buckets;
+    private int head = NONE;
+    private int tail = NONE;
+    private int free = NONE;
+    private int used;
+    private int size;
+    private int modCount;
+
+    public LongLinkedHashSet() {
+        allocate(DEFAULT_CAPACITY);
+    }
+
+    public LongLinkedHashSet(Collection<Long> values) {
+        allocate(Math.max(DEFAULT_CAPACITY, values.size()));
+        values.forEach(this::add);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Long value && contains(value.longValue());
+    }
+
+    public boolean contains(long value) {
+        return find(value) != NONE;
+    }
+
+    @Override
+    public boolean add(Long value) {
+        return add(value.longValue());
+    }
+
+    /**
+     * @return - false, если значение уже было в множестве. Порядок такого значения не меняется.
+     */
+    public boolean add(long value) {
+        if (contains(value)) {
+            return false;
+        }
+        int entry;
+        if (free != NONE) {
+            entry = free;
+            free = nextInBucket[entry];
+        } else {
+            if (used == keys.length) {
+                resize(keys.length * 2);
+            }
+            entry = used++;
+        }
+        keys[entry] = value;
+        int bucket = bucketOf(value);
+        nextInBucket[entry] = buckets[bucket];
+        buckets[bucket] = entry;
+        before[entry] = tail;
+        after[entry] = NONE;
+        if (tail == NONE) {
+            head = entry;
+        } else {
+            after[tail] = entry;
+        }
+        tail = entry;
+        size++;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return o instanceof Long value && remove(value.longValue());
+    }
+
+    public boolean remove(long value) {
+        int bucket = bucketOf(value);
+        int previous = NONE;
+        int entry = buckets[bucket];
+        while (entry != NONE && keys[entry] != value) {
+            previous = entry;
+            entry = nextInBucket[entry];
+        }
+        if (entry == NONE) {
+            return false;
+        }
+        if (previous == NONE) {
+            buckets[bucket] = nextInBucket[entry];
+        } else {
+            nextInBucket[previous] = nextInBucket[entry];
+        }
+        if (before[entry] == NONE) {
+            head = after[entry];
+        } else {
+            after[before[entry]] = after[entry];
+        }
+        if (after[entry] == NONE) {
+            tail = before[entry];
+        } else {
+            before[after[entry]] = before[entry];
+        }
+        nextInBucket[entry] = free;
+        free = entry;
+        size--;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(buckets, NONE);
+        head = NONE;
+        tail = NONE;
+        free = NONE;
+        used = 0;
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * Обходит значения в порядке добавления без упаковки. Поддерживает remove.
+     */
+    @Override
+    public PrimitiveIterator.OfLong iterator() {
+        return new PrimitiveIterator.OfLong() {
+            private int next = head;
+            private int last = NONE;
+            private int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return next != NONE;
+            }
+
+            @Override
+            public long nextLong() {
+                if (expectedModCount != modCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (next == NONE) {
+                    throw new NoSuchElementException();
+                }
+                last = next;
+                next = after[next];
+                return keys[last];
+            }
+
+            @Override
+            public void remove() {
+                if (last == NONE) {
+                    throw new IllegalStateException();
+                }
+                LongLinkedHashSet.this.remove(keys[last]);
+                last = NONE;
+                expectedModCount = modCount;
+            }
+        };
+    }
+
+    /**
+     * Удаляет и возвращает значение, добавленное раньше остальных.
+     */
+    public long removeFirst() {
+        if (head == NONE) {
+            throw new NoSuchElementException();
+        }
+        long value = keys[head];
+        remove(value);
+        return value;
+    }
+
+    /**
+     * Обходит значения от последнего добавленного к первому без упаковки. Не поддерживает remove.
+     */
+    public PrimitiveIterator.OfLong descendingIterator() {
+        return new PrimitiveIterator.OfLong() {
+            private int next = tail;
+            private final int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return next != NONE;
+            }
+
+            @Override
+            public long nextLong() {
+                if (expectedModCount != modCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (next == NONE) {
+                    throw new NoSuchElementException();
+                }
+                long value = keys[next];
+                next = before[next];
+                return value;
+            }
+        };
+    }
+
+    private int find(long value) {
+        int entry = buckets[bucketOf(value)];
+        while (entry != NONE && keys[entry] != value) {
+            entry = nextInBucket[entry];
+        }
+        return entry;
+    }
+
+    private int bucketOf(long value) {
+        long hash = value * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & (buckets.length - 1);
+    }
+
+    private void allocate(int capacity) {
+        int tableSize = Integer.highestOneBit(capacity - 1) << 1;
+        keys = new long[tableSize];
+        before = new int[tableSize];
+        after = new int[tableSize];
+        nextInBucket = new int[tableSize];
+        buckets = new int[tableSize];
+        Arrays.fill(buckets, NONE);
+    }
+
+    /**
+     * Переносит значения в массивы нового размера подряд в порядке добавления, освобождённые записи при этом исчезают.
+     */
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldAfter = after;
+        int entry = head;
+        allocate(capacity);
+        head = NONE;
+        tail = NONE;
+        free = NONE;
+        used = 0;
+        size = 0;
+        while (entry != NONE) {
+            add(oldKeys[entry]);
+            entry = oldAfter[entry];
+        }
+    }
+}
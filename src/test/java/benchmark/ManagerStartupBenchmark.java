@@ -0,0 +1,61 @@
+package benchmark;
+
+import manager.impl.FileBackedTasksManager;
+import manager.impl.InMemoryTaskManager;
+import manager.impl.SlotTimeTable;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость создания менеджеров. legacyYearTimeTable воспроизводит прежний generateTimeTable(),
+ * который строил TreeMap из 15-минутных ячеек на 2023 год при создании каждого менеджера.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ManagerStartupBenchmark {
+
+    @Benchmark
+    public Object inMemoryTaskManager() {
+        return new InMemoryTaskManager();
+    }
+
+    @Benchmark
+    public Object inMemoryTaskManagerWithSlotTimeTable() {
+        return new InMemoryTaskManager(SlotTimeTable::new);
+    }
+
+    @Benchmark
+    public Object fileBackedTasksManager() {
+        return new FileBackedTasksManager("startup.csv");
+    }
+
+    @Benchmark
+    public Object legacyYearTimeTable() {
+        TreeMap<Long, Long> timeTableByYearPer15Min = new TreeMap<>();
+        long pointFromStartYear = 0;
+        Duration durationForYear = Duration.between(LocalDateTime.of(2023, 1, 1, 0, 0, 0),
+                LocalDateTime.of(2023, 12, 31, 23, 59, 59));
+
+        while (pointFromStartYear <= durationForYear.toMinutes()) {
+            timeTableByYearPer15Min.put(pointFromStartYear, 0L);
+            pointFromStartYear += 15;
+        }
+        return timeTableByYearPer15Min;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ManagerStartupBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
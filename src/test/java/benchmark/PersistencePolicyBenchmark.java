@@ -0,0 +1,113 @@
+package benchmark;
+
+import manager.impl.DurabilityPolicy;
+import manager.impl.FileBackedTasksManager;
+import manager.impl.IntervalTimeTable;
+import manager.impl.StorageMode;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import task.Task;
+import task.TaskStatus;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность и задержки записи изменений менеджера при разных правилах записи на диск.
+ * Одна операция - updatesPerCommit изменений задач из 1000 и awaitDurable, как при подтверждении запроса клиенту.
+ * SNAPSHOT перезаписывает файл целиком при каждом изменении, остальные варианты дописывают записи в журнал
+ * изменений по правилу SYNC, GROUP_COMMIT или ASYNC: SYNC сбрасывает на диск каждое изменение,
+ * GROUP_COMMIT - пачки изменений, накопившихся за время предыдущего fsync, ASYNC не ждёт записи.
+ * Режим SampleTime выводит перцентили задержки (p0.50, p0.90, p0.99, p0.999).
+ * Результат зависит от диска, поэтому временный каталог создаётся на том же диске, что и рабочий (java.io.tmpdir).
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersistencePolicyBenchmark {
+    private static final int TASK_COUNT = 1_000;
+
+    private static DurabilityPolicy policy(String name) {
+        return switch (name) {
+            case "GROUP_COMMIT" -> DurabilityPolicy.groupCommit(Duration.ZERO, 64);
+            case "ASYNC" -> DurabilityPolicy.async(Duration.ofMillis(10), 1024);
+            default -> DurabilityPolicy.sync();
+        };
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        File[] files = directory.toFile().listFiles();
+        if (files != null) {
+            for (File file : files) {
+                Files.deleteIfExists(file.toPath());
+            }
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    @State(Scope.Thread)
+    public static class ManagerState {
+        @Param({"SNAPSHOT", "SYNC", "GROUP_COMMIT", "ASYNC"})
+        public String storage;
+        @Param({"1", "16"})
+        public int updatesPerCommit;
+        private Path directory;
+        private FileBackedTasksManager taskManager;
+        private List<Task> updatedTasks;
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            directory = Files.createTempDirectory("persistence-benchmark");
+            String pathToFile = directory.resolve("tasks.csv").toString();
+            taskManager = storage.equals("SNAPSHOT")
+                    ? new FileBackedTasksManager(pathToFile, IntervalTimeTable::new, StorageMode.SNAPSHOT)
+                    : new FileBackedTasksManager(pathToFile, IntervalTimeTable::new, StorageMode.JOURNAL,
+                    policy(storage));
+            List<Task> tasks = new ArrayList<>();
+            for (int i = 0; i < TASK_COUNT; i++) {
+                tasks.add(new Task("Task" + i, "Benchmark task"));
+            }
+            taskManager.addNewTasks(tasks);
+            updatedTasks = new ArrayList<>();
+            for (Task task : tasks) {
+                Task updatedTask = new Task(task.getName(), "Updated task");
+                updatedTask.setId(task.getId());
+                updatedTask.setStatus(TaskStatus.IN_PROGRESS);
+                updatedTasks.add(updatedTask);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            taskManager.close();
+            deleteDirectory(directory);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void updateTask(ManagerState state) {
+        for (int i = 0; i < state.updatesPerCommit; i++) {
+            state.taskManager.updateTask(state.updatedTasks.get(state.next));
+            state.next = (state.next + 1) % TASK_COUNT;
+        }
+        state.taskManager.awaitDurable();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PersistencePolicyBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
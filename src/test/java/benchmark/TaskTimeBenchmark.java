@@ -0,0 +1,154 @@
+package benchmark;
+
+import manager.impl.InMemoryTaskManager;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import task.Task;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость путей добавления и обновления задач с временем. legacyTimeConversion повторяет прежнее вычисление
+ * минут из getStartTime() и getEndTime() при каждой проверке, epochMinutes - чтение минут, хранящихся в Task.
+ * legacyAddNewTask и legacyUpdateTask - базовая линия для addNewTask и updateTask: те же операции над LegacyTask,
+ * которая, как раньше, вычисляет минуты из LocalDateTime при каждом обращении.
+ * Для сравнения выделяемой памяти запускать с профайлером gc (-prof gc).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TaskTimeBenchmark {
+    private static final int TASK_COUNT = 1_000;
+    private final LocalDateTime startTime = LocalDateTime.of(2023, 10, 2, 9, 0);
+    private List<Task> tasks;
+    private List<Task> updatedTasks;
+    private InMemoryTaskManager filledManager;
+    private List<Task> legacyTasks;
+    private List<Task> legacyUpdatedTasks;
+    private InMemoryTaskManager legacyFilledManager;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        tasks = new ArrayList<>();
+        legacyTasks = new ArrayList<>();
+        for (int i = 0; i < TASK_COUNT; i++) {
+            tasks.add(new Task("Task" + i, "Benchmark task", 30, startTime.plusHours(i)));
+            legacyTasks.add(new LegacyTask("Task" + i, "Benchmark task", 30, startTime.plusHours(i)));
+        }
+        filledManager = new InMemoryTaskManager();
+        updatedTasks = new ArrayList<>();
+        for (Task task : tasks) {
+            Task copy = new Task(task.getName(), task.getDescription(), task.getDuration(), task.getStartTime());
+            filledManager.addNewTask(copy);
+            Task updatedTask = new Task(task.getName(), "Updated task", 45, task.getStartTime().plusMinutes(5));
+            updatedTask.setId(copy.getId());
+            updatedTasks.add(updatedTask);
+        }
+        legacyFilledManager = new InMemoryTaskManager();
+        legacyUpdatedTasks = new ArrayList<>();
+        for (Task task : legacyTasks) {
+            Task copy = new LegacyTask(task.getName(), task.getDescription(), task.getDuration(), task.getStartTime());
+            legacyFilledManager.addNewTask(copy);
+            Task updatedTask = new LegacyTask(task.getName(), "Updated task", 45, task.getStartTime().plusMinutes(5));
+            updatedTask.setId(copy.getId());
+            legacyUpdatedTasks.add(updatedTask);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TASK_COUNT)
+    public Object addNewTask() {
+        InMemoryTaskManager taskManager = new InMemoryTaskManager();
+        for (Task task : tasks) {
+            taskManager.addNewTask(task);
+        }
+        return taskManager;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TASK_COUNT)
+    public Object updateTask() {
+        for (Task task : updatedTasks) {
+            filledManager.updateTask(task);
+        }
+        return filledManager;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TASK_COUNT)
+    public Object legacyAddNewTask() {
+        InMemoryTaskManager taskManager = new InMemoryTaskManager();
+        for (Task task : legacyTasks) {
+            taskManager.addNewTask(task);
+        }
+        return taskManager;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TASK_COUNT)
+    public Object legacyUpdateTask() {
+        for (Task task : legacyUpdatedTasks) {
+            legacyFilledManager.updateTask(task);
+        }
+        return legacyFilledManager;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TASK_COUNT)
+    public void legacyTimeConversion(Blackhole blackhole) {
+        for (Task task : tasks) {
+            blackhole.consume(Math.floorDiv(task.getStartTime().toEpochSecond(ZoneOffset.UTC), 60));
+            blackhole.consume(Math.floorDiv(task.getEndTime().toEpochSecond(ZoneOffset.UTC), 60));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TASK_COUNT)
+    public void epochMinutes(Blackhole blackhole) {
+        for (Task task : tasks) {
+            blackhole.consume(task.getStartMinutes());
+            blackhole.consume(task.getEndMinutes());
+        }
+    }
+
+    /**
+     * Задача без хранимых минут: минуты вычисляются из getStartTime() и getEndTime() при каждом обращении.
+     */
+    private static class LegacyTask extends Task {
+        private LegacyTask(String name, String description, long duration, LocalDateTime startTime) {
+            super(name, description, duration, startTime);
+        }
+
+        @Override
+        public long getStartMinutes() {
+            if (getStartTime() == null) {
+                return Long.MIN_VALUE;
+            }
+            return Math.floorDiv(getStartTime().toEpochSecond(ZoneOffset.UTC), 60);
+        }
+
+        @Override
+        public long getEndMinutes() {
+            if (getStartTime() == null) {
+                return getStartMinutes() + getDuration();
+            }
+            return Math.floorDiv(getEndTime().toEpochSecond(ZoneOffset.UTC), 60);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TaskTimeBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
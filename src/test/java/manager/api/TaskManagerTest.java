@@ -1,12 +1,17 @@
 package manager.api;
 
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonDeserializer;
 import org.junit.jupiter.api.Test;
 import task.EpicTask;
+import task.Recurrence;
 import task.SubTask;
 import task.Task;
 import task.TaskStatus;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -16,6 +21,10 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 
 public abstract class TaskManagerTest <T extends TaskManager>{
+    private static final Gson gson = new GsonBuilder()
+            .registerTypeAdapter(LocalDateTime.class, (JsonDeserializer<LocalDateTime>)
+                    (json, typeOfT, context) -> LocalDateTime.parse(json.getAsString()))
+            .create();
     protected T taskManager;
 
     T getTaskManager() {
@@ -119,6 +128,7 @@ public abstract class TaskManagerTest <T extends TaskManager>{
         SubTask subTask = taskManager.getSubTasks().get(4L);
         SubTask subTask2 = taskManager.getSubTasks().get(5L);
         SubTask subTask3 = taskManager.getSubTasks().get(6L);
+        taskManager.getEpicTasks().get(1L).setSubTasksId(List.of(4L, 5L, 6L));
 
         List<SubTask> actualSubTasks = taskManager.getSubTasksByEpicId(1L);
 
@@ -129,6 +139,24 @@ public abstract class TaskManagerTest <T extends TaskManager>{
         );
     }
 
+    @Test
+    void getSubTasksByEpicId_ShouldReturnReadOnlyViewFollowingEpicChanges() {
+        EpicTask epicTask = new EpicTask("Test Epic Task", "This is a test epic task");
+        taskManager.addNewEpicTask(epicTask);
+        SubTask subTask1 = new SubTask("SubTask 1", "This is subtask 1", epicTask.getId());
+        taskManager.addNewSubTask(subTask1);
+        List<SubTask> actualSubTasks = taskManager.getSubTasksByEpicId(epicTask.getId());
+
+        SubTask subTask2 = new SubTask("SubTask 2", "This is subtask 2", epicTask.getId());
+        taskManager.addNewSubTask(subTask2);
+        assertThat(actualSubTasks).containsExactly(subTask1, subTask2);
+        assertThat(actualSubTasks.get(1)).isEqualTo(subTask2);
+
+        taskManager.deleteByIdSubTask(subTask1.getId());
+        assertThat(actualSubTasks).containsExactly(subTask2);
+        assertThrows(UnsupportedOperationException.class, () -> actualSubTasks.add(subTask1));
+    }
+
     @Test
     void getSubTasksByEpicId_ShouldReturnEmptyListSubTasksIfEpicIdNotFound() {
         taskManager = getTaskManager();
@@ -417,6 +445,330 @@ public abstract class TaskManagerTest <T extends TaskManager>{
         assertThat(taskManager.getSubTasks()).containsValue(subTask2);
     }
 
+    @Test
+    void getOrderedTasksByStartTime_ShouldReflectUpdatesAndDeletes() {
+        LocalDateTime startTime = LocalDateTime.of(2023, 10, 6, 10, 0, 0);
+        Task task = new Task("Test Task", "This is a test task", 60, startTime);
+        taskManager.addNewTask(task);
+        Task task2 = new Task("Test Task2", "This is a test task2", 60, startTime.plusHours(2));
+        taskManager.addNewTask(task2);
+        Task task3 = new Task("Test Task3", "This is a test task3");
+        taskManager.addNewTask(task3);
+
+        Task updatedTask = new Task("Updated Task", "This is an updated task", 60, startTime.plusHours(4));
+        updatedTask.setId(task.getId());
+        taskManager.updateTask(updatedTask);
+        taskManager.deleteByIdTask(task3.getId());
+
+        assertThat(taskManager.getOrderedTasksByStartTime()).containsExactly(task2, updatedTask);
+    }
+
+    @Test
+    void getTasksBetween_ShouldReturnTasksStartingInPeriodIncludingSameStartTime() {
+        LocalDateTime startTime = LocalDateTime.of(2023, 10, 6, 10, 0, 0);
+        Task task = new Task("Test Task", "This is a test task", 60, startTime);
+        task.setAssignee("alice");
+        taskManager.addNewTask(task);
+        Task task2 = new Task("Test Task2", "This is a test task2", 60, startTime);
+        task2.setAssignee("bob");
+        taskManager.addNewTask(task2);
+        Task task3 = new Task("Test Task3", "This is a test task3", 60, startTime.plusHours(2));
+        taskManager.addNewTask(task3);
+        taskManager.addNewTask(new Task("Test Task4", "This is a test task4"));
+
+        assertThat(taskManager.getTasksBetween(startTime, startTime.plusHours(2))).containsExactly(task, task2);
+        assertThat(taskManager.getTasksBetween(startTime.plusMinutes(1), startTime.plusDays(1)))
+                .containsExactly(task3);
+    }
+
+    @Test
+    void getTasksAfter_ShouldPageThroughIndexInBothDirections() {
+        LocalDateTime startTime = LocalDateTime.of(2023, 10, 6, 10, 0, 0);
+        Task task = new Task("Test Task", "This is a test task", 60, startTime);
+        taskManager.addNewTask(task);
+        Task task2 = new Task("Test Task2", "This is a test task2", 60, startTime.plusHours(2));
+        taskManager.addNewTask(task2);
+        Task task3 = new Task("Test Task3", "This is a test task3", 60, startTime.plusHours(4));
+        taskManager.addNewTask(task3);
+        Task task4 = new Task("Test Task4", "This is a test task4");
+        taskManager.addNewTask(task4);
+
+        assertThat(taskManager.getTasksAfter(task.getStartTime(), task.getId(), 2)).containsExactly(task2, task3);
+        assertThat(taskManager.getTasksAfter(task3.getStartTime(), task3.getId(), 2)).containsExactly(task4);
+        assertThat(taskManager.getTasksAfter(null, task4.getId(), 2)).isEmpty();
+        assertThat(taskManager.getTasksBefore(null, task4.getId(), 2)).containsExactly(task3, task2);
+        assertThat(taskManager.getTasksBefore(task.getStartTime(), task.getId(), 2)).isEmpty();
+    }
+
+    @Test
+    void getUpcoming_ShouldReturnNextTasksAndOccurrencesWithoutEpics() {
+        LocalDateTime startTime = LocalDateTime.of(2023, 10, 6, 10, 0, 0);
+        EpicTask epicTask = new EpicTask("Test Epic Task", "This is a test epic task");
+        taskManager.addNewEpicTask(epicTask);
+        SubTask subTask = new SubTask("Test SubTask", "This is a test subtask", 60, startTime.plusHours(2),
+                epicTask.getId());
+        taskManager.addNewSubTask(subTask);
+        Task pastTask = new Task("Past Task", "This is a past task", 60, startTime.minusHours(2));
+        taskManager.addNewTask(pastTask);
+        Task task = new Task("Test Task", "This is a test task", 60, startTime.plusDays(1).plusHours(3));
+        taskManager.addNewTask(task);
+        Task standUp = new Task("Stand-up", "Daily stand-up", 15, startTime.minusDays(3).plusHours(1));
+        standUp.setRecurrence(Recurrence.daily(startTime.plusDays(30)));
+        taskManager.addNewTask(standUp);
+
+        List<Task> upcoming = taskManager.getUpcoming(startTime, 4);
+
+        assertThat(upcoming).extracting(Task::getStartTime).containsExactly(startTime.plusHours(1),
+                startTime.plusHours(2), startTime.plusDays(1).plusHours(1), startTime.plusDays(1).plusHours(3));
+        assertThat(upcoming).extracting(Task::getId)
+                .containsExactly(standUp.getId(), subTask.getId(), standUp.getId(), task.getId());
+    }
+
+    @Test
+    void getUpcoming_ShouldThrowExceptionIfKIsNotPositive() {
+        Exception exception = assertThrows(
+                RuntimeException.class,
+                () -> taskManager.getUpcoming(LocalDateTime.of(2023, 10, 6, 10, 0, 0), 0)
+        );
+
+        assertThat(exception).hasMessageMatching("Not valid upcoming parameters");
+    }
+
+    @Test
+    void getFreeSlots_ShouldReturnEarliestWindowsBetweenScheduledTasks() {
+        LocalDateTime startTime = LocalDateTime.of(2023, 10, 6, 10, 0, 0);
+        taskManager.addNewTask(new Task("Test Task", "This is a test task", 60, startTime));
+        taskManager.addNewTask(new Task("Test Task2", "This is a test task2", 60, startTime.plusMinutes(90)));
+        taskManager.addNewTask(new Task("Test Task3", "This is a test task3", 60, startTime.plusHours(4)));
+
+        List<LocalDateTime> freeSlots = taskManager.getFreeSlots(startTime.minusMinutes(30), 60, 3, null);
+
+        assertThat(freeSlots).containsExactly(startTime.plusMinutes(151), startTime.plusMinutes(301));
+    }
+
+    @Test
+    void getFreeSlots_ShouldReturnAfterTimeIfNothingScheduled() {
+        LocalDateTime startTime = LocalDateTime.of(2023, 10, 6, 10, 0, 0);
+
+        List<LocalDateTime> freeSlots = taskManager.getFreeSlots(startTime, 60, 5, null);
+
+        assertThat(freeSlots).containsExactly(startTime);
+    }
+
+    @Test
+    void getUtilization_ShouldReturnScheduledMinutesPerBucket() {
+        LocalDateTime startTime = LocalDateTime.of(2023, 10, 6, 22, 0, 0);
+        EpicTask epicTask = new EpicTask("Test Epic Task", "This is a test epic task");
+        taskManager.addNewEpicTask(epicTask);
+        taskManager.addNewTask(new Task("Test Task", "This is a test task", 180, startTime));
+        taskManager.addNewSubTask(new SubTask("Test SubTask", "This is a test subtask", 30,
+                startTime.plusHours(12), epicTask.getId()));
+
+        Map<LocalDateTime, Long> utilization = taskManager.getUtilization(LocalDateTime.of(2023, 10, 6, 0, 0),
+                LocalDateTime.of(2023, 10, 8, 12, 0), ChronoUnit.DAYS, null);
+
+        assertThat(utilization).containsExactly(
+                Map.entry(LocalDateTime.of(2023, 10, 6, 0, 0), 120L),
+                Map.entry(LocalDateTime.of(2023, 10, 7, 0, 0), 90L),
+                Map.entry(LocalDateTime.of(2023, 10, 8, 0, 0), 0L)
+        );
+    }
+
+    @Test
+    void getUtilization_ShouldThrowExceptionIfFromIsNotBeforeTo() {
+        LocalDateTime startTime = LocalDateTime.of(2023, 10, 6, 22, 0, 0);
+
+        Exception exception = assertThrows(
+                RuntimeException.class,
+                () -> taskManager.getUtilization(startTime, startTime, ChronoUnit.DAYS, null)
+        );
+
+        assertThat(exception).hasMessageMatching("Not valid utilization parameters");
+    }
+
+    @Test
+    void getUtilization_ShouldThrowExceptionIfTooManyBuckets() {
+        LocalDateTime from = LocalDateTime.of(2023, 1, 1, 0, 0);
+
+        Exception exception = assertThrows(
+                RuntimeException.class,
+                () -> taskManager.getUtilization(from, from.plusYears(1), ChronoUnit.SECONDS, null)
+        );
+
+        assertThat(exception).hasMessageMatching("Not valid utilization parameters");
+    }
+
+    @Test
+    void addNewTasks_ShouldAddNotCrossingTasksAndReturnRejected() {
+        LocalDateTime startTime = LocalDateTime.of(2023, 10, 6, 10, 0, 0);
+        Task existingTask = new Task("Existing Task", "This is an existing task", 60, startTime);
+        taskManager.addNewTask(existingTask);
+        EpicTask epicTask = new EpicTask("Test Epic Task", "This is a test epic task");
+        taskManager.addNewEpicTask(epicTask);
+
+        Task crossExisting = new Task("Test Task", "This is a test task", 30, startTime.plusMinutes(30));
+        Task task = new Task("Test Task2", "This is a test task2", 60, startTime.plusHours(3));
+        Task crossBatch = new Task("Test Task3", "This is a test task3", 60, startTime.plusHours(3).plusMinutes(30));
+        SubTask subTask = new SubTask("Test SubTask", "This is a test subtask", 30, startTime.plusHours(2),
+                epicTask.getId());
+        SubTask subTaskWithoutEpic = new SubTask("Test SubTask2", "This is a test subtask2", 1111);
+        Task taskWithoutTime = new Task("Test Task4", "This is a test task4");
+
+        List<Task> rejected = taskManager.addNewTasks(
+                List.of(crossExisting, task, crossBatch, subTask, subTaskWithoutEpic, taskWithoutTime));
+
+        assertThat(rejected).containsExactly(crossExisting, crossBatch, subTaskWithoutEpic);
+        assertThat(taskManager.getTasks()).containsValues(existingTask, task, taskWithoutTime).hasSize(3);
+        assertThat(taskManager.getSubTasks()).containsValue(subTask).hasSize(1);
+        assertThat(epicTask.getSubTasksId()).containsExactly(subTask.getId());
+        assertThat(epicTask.getStartTime()).isEqualTo(subTask.getStartTime());
+    }
+
+    @Test
+    void addNewTask_ShouldStoreRecurringTaskOnceAndCheckEachOccurrence() {
+        LocalDateTime startTime = LocalDateTime.of(2023, 10, 2, 9, 0, 0);
+        Task standUp = new Task("Stand-up", "Daily stand-up", 15, startTime);
+        standUp.setRecurrence(Recurrence.daily(startTime.plusDays(364)));
+        taskManager.addNewTask(standUp);
+
+        Task crossOccurrence = new Task("Test Task", "This is a test task", 60, startTime.plusDays(100).minusMinutes(30));
+        taskManager.addNewTask(crossOccurrence);
+        Task betweenOccurrences = new Task("Test Task2", "This is a test task2", 60, startTime.plusDays(100).plusHours(1));
+        taskManager.addNewTask(betweenOccurrences);
+        Task afterLastOccurrence = new Task("Test Task3", "This is a test task3", 60, startTime.plusDays(365));
+        taskManager.addNewTask(afterLastOccurrence);
+
+        assertThat(taskManager.getTasks()).containsValues(standUp, betweenOccurrences, afterLastOccurrence)
+                .hasSize(3);
+    }
+
+    @Test
+    void addNewTask_ShouldDeclineRecurringTaskCrossingExistingTasks() {
+        LocalDateTime startTime = LocalDateTime.of(2023, 10, 2, 9, 0, 0);
+        taskManager.addNewTask(new Task("Test Task", "This is a test task", 60, startTime.plusDays(14)));
+        Task weekly = new Task("Weekly Task", "This is a weekly task", 30, startTime.plusDays(7));
+        weekly.setRecurrence(Recurrence.weekly(startTime.plusDays(70)));
+        Task everyTwoDays = new Task("Every Two Days", "This is a recurring task", 30, startTime.plusDays(2));
+        everyTwoDays.setRecurrence(Recurrence.everyDays(2, startTime.plusDays(70)));
+        Task daily = new Task("Daily Task", "This is a daily task", 30, startTime.plusHours(2));
+        daily.setRecurrence(Recurrence.daily(startTime.plusDays(70)));
+
+        taskManager.addNewTask(weekly);
+        taskManager.addNewTask(everyTwoDays);
+        taskManager.addNewTask(daily);
+
+        assertThat(taskManager.getTasks()).doesNotContainValue(weekly).doesNotContainValue(everyTwoDays)
+                .containsValue(daily);
+    }
+
+    @Test
+    void addNewSubTask_ShouldThrowExceptionIfSubTaskIsRecurring() {
+        EpicTask epicTask = new EpicTask("Test Epic Task", "This is a test epic task");
+        taskManager.addNewEpicTask(epicTask);
+        LocalDateTime startTime = LocalDateTime.of(2023, 10, 2, 9, 0, 0);
+        SubTask subTask = new SubTask("Test SubTask", "This is a test subtask", 30, startTime, epicTask.getId());
+        subTask.setRecurrence(Recurrence.daily(startTime.plusDays(7)));
+
+        Exception exception = assertThrows(
+                RuntimeException.class,
+                () -> taskManager.addNewSubTask(subTask)
+        );
+
+        assertThat(exception).hasMessageMatching("Recurrence is supported only for tasks");
+    }
+
+    @Test
+    void addNewTask_ShouldThrowExceptionIfRecurrenceBypassedConstructor() {
+        LocalDateTime startTime = LocalDateTime.of(2023, 10, 2, 9, 0, 0);
+        Task zeroInterval = new Task("Stand-up", "Daily stand-up", 15, startTime);
+        zeroInterval.setRecurrence(gson.fromJson("{\"intervalDays\":0}", Recurrence.class));
+        Task withoutUntil = new Task("Stand-up", "Daily stand-up", 15, startTime);
+        withoutUntil.setRecurrence(gson.fromJson("{\"intervalDays\":1}", Recurrence.class));
+
+        Exception zeroIntervalException = assertThrows(RuntimeException.class,
+                () -> taskManager.addNewTask(zeroInterval));
+        Exception withoutUntilException = assertThrows(RuntimeException.class,
+                () -> taskManager.addNewTask(withoutUntil));
+
+        assertThat(zeroIntervalException).hasMessageMatching("Not valid recurrence parameters");
+        assertThat(withoutUntilException).hasMessageMatching("Not valid recurrence parameters");
+        assertThat(taskManager.getTasks()).isEmpty();
+        assertThat(taskManager.addNewTasks(List.of(zeroInterval))).containsExactly(zeroInterval);
+    }
+
+    @Test
+    void getOrderedTasksByStartTime_ShouldExpandOccurrencesOnlyInsidePeriod() {
+        LocalDateTime startTime = LocalDateTime.of(2023, 10, 2, 9, 0, 0);
+        Task standUp = new Task("Stand-up", "Daily stand-up", 15, startTime);
+        standUp.setRecurrence(Recurrence.daily(startTime.plusDays(364)));
+        taskManager.addNewTask(standUp);
+        Task task = new Task("Test Task", "This is a test task", 60, startTime.plusDays(10).plusHours(1));
+        taskManager.addNewTask(task);
+        taskManager.addNewTask(new Task("Test Task2", "This is a test task2", 60, startTime.plusDays(20)));
+
+        List<Task> orderedTasks = taskManager.getOrderedTasksByStartTime(startTime.plusDays(9).plusHours(1),
+                startTime.plusDays(12));
+
+        assertThat(orderedTasks).extracting(Task::getStartTime).containsExactly(
+                startTime.plusDays(10), startTime.plusDays(10).plusHours(1), startTime.plusDays(11));
+        assertThat(orderedTasks).extracting(Task::getId)
+                .containsExactly(standUp.getId(), task.getId(), standUp.getId());
+    }
+
+    @Test
+    void getOrderedTasksByStartTime_ShouldReturnLongTaskStartedBeforePeriod() {
+        LocalDateTime startTime = LocalDateTime.of(2023, 10, 2, 9, 0, 0);
+        Task longTask = new Task("Long Task", "Started before period", 60 * 24 * 30, startTime);
+        taskManager.addNewTask(longTask);
+        Task endedTask = new Task("Ended Task", "Ended before period", 60, startTime.plusDays(1));
+        endedTask.setAssignee("Other");
+        taskManager.addNewTask(endedTask);
+        Task task = new Task("Test Task", "Inside period", 60, startTime.plusDays(10));
+        task.setAssignee("Other");
+        taskManager.addNewTask(task);
+
+        List<Task> orderedTasks = taskManager.getOrderedTasksByStartTime(startTime.plusDays(9), startTime.plusDays(11));
+
+        assertThat(orderedTasks).containsExactly(longTask, task);
+    }
+
+    @Test
+    void getFreeSlots_ShouldSkipOccurrencesOfRecurringTasks() {
+        LocalDateTime startTime = LocalDateTime.of(2023, 10, 2, 9, 0, 0);
+        Task standUp = new Task("Stand-up", "Daily stand-up", 30, startTime);
+        standUp.setRecurrence(Recurrence.daily(startTime.plusDays(1)));
+        taskManager.addNewTask(standUp);
+        taskManager.addNewTask(new Task("Test Task", "This is a test task", 60, startTime.plusHours(2)));
+
+        List<LocalDateTime> freeSlots = taskManager.getFreeSlots(startTime.minusMinutes(10), 60, 4, null);
+
+        assertThat(freeSlots).containsExactly(startTime.plusMinutes(31), startTime.plusHours(3).plusMinutes(1),
+                startTime.plusDays(1).plusMinutes(31));
+    }
+
+    @Test
+    void getUtilization_ShouldCountOccurrencesOfRecurringTasks() {
+        LocalDateTime startTime = LocalDateTime.of(2023, 10, 2, 9, 0, 0);
+        Task standUp = new Task("Stand-up", "Daily stand-up", 15, startTime);
+        standUp.setRecurrence(Recurrence.daily(startTime.plusDays(2)));
+        taskManager.addNewTask(standUp);
+
+        Map<LocalDateTime, Long> utilization = taskManager.getUtilization(LocalDateTime.of(2023, 10, 2, 0, 0),
+                LocalDateTime.of(2023, 10, 6, 0, 0), ChronoUnit.DAYS, null);
+
+        assertThat(utilization.values()).containsExactly(15L, 15L, 15L, 0L);
+    }
+
+    @Test
+    void addNewTasks_ShouldThrowExceptionIfPassNull() {
+        Exception exception = assertThrows(
+                RuntimeException.class,
+                () -> taskManager.addNewTasks(null)
+        );
+
+        assertThat(exception).hasMessageMatching("Empty value passed");
+    }
+
     @Test
     void updateTask_ShouldUpdateExistingTask() {
         Task task = new Task("Test Task", "This is a test task");
@@ -635,6 +987,168 @@ public abstract class TaskManagerTest <T extends TaskManager>{
         assertThat(epicTask.getStatus()).isEqualTo(TaskStatus.IN_PROGRESS);
     }
 
+    @Test
+    void epicStatus_ShouldFollowSubTaskChangesWithoutCheckStatusEpicTask() {
+        EpicTask epicTask = new EpicTask("Test Epic Task", "This is a test epic task");
+        taskManager.addNewEpicTask(epicTask);
+        SubTask subTask1 = new SubTask("SubTask 1", "This is subtask 1", epicTask.getId());
+        taskManager.addNewSubTask(subTask1);
+        SubTask subTask2 = new SubTask("SubTask 2", "This is subtask 2", epicTask.getId());
+        subTask2.setStatus(TaskStatus.DONE);
+        taskManager.addNewSubTask(subTask2);
+        assertThat(epicTask.getStatus()).isEqualTo(TaskStatus.IN_PROGRESS);
+
+        SubTask updatedSubTask = new SubTask("SubTask 1", "This is subtask 1", epicTask.getId());
+        updatedSubTask.setId(subTask1.getId());
+        updatedSubTask.setStatus(TaskStatus.DONE);
+        taskManager.updateSubTask(updatedSubTask);
+        assertThat(epicTask.getStatus()).isEqualTo(TaskStatus.DONE);
+
+        SubTask subTask3 = new SubTask("SubTask 3", "This is subtask 3", epicTask.getId());
+        taskManager.addNewSubTask(subTask3);
+        assertThat(epicTask.getStatus()).isEqualTo(TaskStatus.IN_PROGRESS);
+
+        taskManager.deleteByIdSubTask(subTask3.getId());
+        assertThat(epicTask.getStatus()).isEqualTo(TaskStatus.DONE);
+
+        taskManager.removeAllSubTasks();
+        assertThat(epicTask.getStatus()).isEqualTo(TaskStatus.NEW);
+        assertThat(epicTask.getSubTasksId()).isEmpty();
+    }
+
+    @Test
+    void epicTime_ShouldSpanFromEarliestStartToLatestEnd() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 9, 0);
+        EpicTask epicTask = new EpicTask("Test Epic Task", "This is a test epic task");
+        taskManager.addNewEpicTask(epicTask);
+        SubTask longSubTask = new SubTask("SubTask 1", "This is subtask 1", 240, start, epicTask.getId());
+        taskManager.addNewSubTask(longSubTask);
+        SubTask lateSubTask = new SubTask("SubTask 2", "This is subtask 2", 30,
+                start.plusHours(5), epicTask.getId());
+        taskManager.addNewSubTask(lateSubTask);
+        SubTask shortSubTask = new SubTask("SubTask 3", "This is subtask 3", 30,
+                start.plusHours(1), epicTask.getId());
+        shortSubTask.setAssignee("Bob");
+        taskManager.addNewSubTask(shortSubTask);
+        assertThat(epicTask.getStartTime()).isEqualTo(start);
+        assertThat(epicTask.getDuration()).isEqualTo(330);
+
+        taskManager.deleteByIdSubTask(lateSubTask.getId());
+        assertThat(epicTask.getDuration()).isEqualTo(240);
+
+        taskManager.deleteByIdSubTask(longSubTask.getId());
+        assertThat(epicTask.getStartTime()).isEqualTo(start.plusHours(1));
+        assertThat(epicTask.getDuration()).isEqualTo(30);
+
+        taskManager.deleteByIdSubTask(shortSubTask.getId());
+        assertThat(epicTask.getStartTime()).isNull();
+        assertThat(epicTask.getDuration()).isZero();
+    }
+
+    @Test
+    void nestedEpics_ShouldRollUpStatusAndTimeThroughAllLevels() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 9, 0);
+        EpicTask initiative = new EpicTask("Initiative", "Top level");
+        taskManager.addNewEpicTask(initiative);
+        EpicTask epic = new EpicTask("Epic", "Second level");
+        epic.setIdParentEpic(initiative.getId());
+        taskManager.addNewEpicTask(epic);
+        EpicTask story = new EpicTask("Story", "Third level");
+        story.setIdParentEpic(epic.getId());
+        taskManager.addNewEpicTask(story);
+        SubTask storySubTask = new SubTask("Story SubTask", "Leaf", 60, start.plusHours(2), story.getId());
+        taskManager.addNewSubTask(storySubTask);
+        SubTask epicSubTask = new SubTask("Epic SubTask", "Leaf", 30, start, epic.getId());
+        epicSubTask.setStatus(TaskStatus.DONE);
+        taskManager.addNewSubTask(epicSubTask);
+
+        assertThat(initiative.getChildEpicsId()).containsExactly(epic.getId());
+        assertThat(initiative.getStatus()).isEqualTo(TaskStatus.IN_PROGRESS);
+        assertThat(initiative.getStartTime()).isEqualTo(start);
+        assertThat(initiative.getDuration()).isEqualTo(180);
+
+        SubTask doneStorySubTask = new SubTask("Story SubTask", "Leaf", 60, start.plusHours(3), story.getId());
+        doneStorySubTask.setId(storySubTask.getId());
+        doneStorySubTask.setStatus(TaskStatus.DONE);
+        taskManager.updateSubTask(doneStorySubTask);
+
+        assertThat(story.getStatus()).isEqualTo(TaskStatus.DONE);
+        assertThat(initiative.getStatus()).isEqualTo(TaskStatus.DONE);
+        assertThat(initiative.getDuration()).isEqualTo(240);
+
+        taskManager.deleteByIdEpicTasks(story.getId());
+
+        assertThat(taskManager.getSubTasks()).doesNotContainKey(storySubTask.getId());
+        assertThat(epic.getChildEpicsId()).isEmpty();
+        assertThat(initiative.getDuration()).isEqualTo(30);
+
+        taskManager.deleteByIdEpicTasks(initiative.getId());
+
+        assertThat(taskManager.getEpicTasks()).isEmpty();
+        assertThat(taskManager.getSubTasks()).isEmpty();
+    }
+
+    @Test
+    void addNewEpicTask_ShouldAddChildEpicWithoutClientStatusAndTime() {
+        EpicTask parent = new EpicTask("Epic", "Top level");
+        taskManager.addNewEpicTask(parent);
+        EpicTask child = new EpicTask("Story", "Nested epic");
+        child.setIdParentEpic(parent.getId());
+        child.setStatus(TaskStatus.DONE);
+        child.setStartTime(LocalDateTime.of(2030, 1, 1, 0, 0));
+        child.setDuration(600);
+        child.setSubTasksId(List.of(1000L));
+
+        taskManager.addNewEpicTask(child);
+
+        assertThat(child.getStatus()).isEqualTo(TaskStatus.NEW);
+        assertThat(child.getStartTime()).isNull();
+        assertThat(child.getSubTasksId()).isEmpty();
+        assertThat(parent.getStatus()).isEqualTo(TaskStatus.NEW);
+        assertThat(parent.getStartTime()).isNull();
+        assertThat(parent.getDuration()).isZero();
+    }
+
+    @Test
+    void addNewTasks_ShouldLinkChildEpicToParentAndRejectEpicWithUnknownParent() {
+        LocalDateTime startTime = LocalDateTime.of(2023, 10, 2, 9, 0, 0);
+        EpicTask parent = new EpicTask("Epic", "Top level");
+        taskManager.addNewEpicTask(parent);
+        SubTask subTask = new SubTask("SubTask", "Done subtask", 60, startTime, parent.getId());
+        subTask.setStatus(TaskStatus.DONE);
+        taskManager.addNewSubTask(subTask);
+        EpicTask child = new EpicTask("Story", "Nested epic");
+        child.setIdParentEpic(parent.getId());
+        child.setStatus(TaskStatus.DONE);
+        child.setStartTime(startTime.minusDays(1));
+        child.setDuration(600);
+        EpicTask orphan = new EpicTask("Orphan", "Epic with unknown parent");
+        orphan.setIdParentEpic(1000);
+
+        List<Task> rejected = taskManager.addNewTasks(List.of(child, orphan));
+
+        assertThat(rejected).containsExactly(orphan);
+        assertThat(child.getStatus()).isEqualTo(TaskStatus.NEW);
+        assertThat(child.getStartTime()).isNull();
+        assertThat(parent.getChildEpicsId()).containsExactly(child.getId());
+        assertThat(parent.getStatus()).isEqualTo(TaskStatus.IN_PROGRESS);
+        assertThat(parent.getStartTime()).isEqualTo(startTime);
+
+        taskManager.deleteByIdEpicTasks(parent.getId());
+
+        assertThat(taskManager.getEpicTasks()).isEmpty();
+    }
+
+    @Test
+    void addNewEpicTask_ShouldThrowExceptionIfParentEpicIsNotExist() {
+        EpicTask epicTask = new EpicTask("Epic", "Nested epic");
+        epicTask.setIdParentEpic(1000);
+
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> taskManager.addNewEpicTask(epicTask));
+
+        assertThat(exception.getMessage()).isEqualTo("Parent epic not found");
+    }
+
     @Test
     void deleteByIdTask_ShouldRemoveTaskWithMatchingId() {
         Task task = new Task("Test Task", "This is a test task");
@@ -0,0 +1,130 @@
+package manager.impl;
+
+import manager.api.HistoryEntry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import task.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BufferedHistoryManagerTest {
+
+    private final BufferedHistoryManager historyManager = new BufferedHistoryManager(1000, 8);
+
+    @AfterEach
+    void tearDown() {
+        historyManager.close();
+    }
+
+    private static Task task(long id) {
+        Task task = new Task("Task" + id, "Viewed task");
+        task.setId(id);
+        return task;
+    }
+
+    @Test
+    void flush_ShouldApplyViewsAndRemovalsInPublishOrder() {
+        Task first = task(1);
+        Task second = task(2);
+        Task third = task(3);
+        historyManager.add(first);
+        historyManager.add(second);
+        historyManager.add(third);
+        historyManager.add(first);
+        historyManager.remove(2);
+
+        historyManager.flush();
+
+        assertThat(historyManager.getHistory()).containsExactly(third, first);
+    }
+
+    @Test
+    void add_ShouldAcceptViewsFromConcurrentThreadsWhenBufferOverflows() throws Exception {
+        int threads = 4;
+        int viewsPerThread = 5_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long firstId = t * 100L;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < viewsPerThread; i++) {
+                    historyManager.add(task(firstId + i % 100));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        historyManager.flush();
+
+        assertThat(historyManager.getHistory()).hasSize(threads * 100);
+    }
+
+    @Test
+    void getHistory_ShouldReturnUnmodifiableSnapshot() {
+        historyManager.add(task(1));
+        historyManager.flush();
+        List<Task> snapshot = historyManager.getHistory();
+
+        historyManager.add(task(2));
+        historyManager.flush();
+
+        assertThat(snapshot).extracting(Task::getId).containsExactly(1L);
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.add(task(3)));
+    }
+
+    @Test
+    void getById_ShouldRecordViewThroughBufferedHistory() {
+        InMemoryTaskManager taskManager = new InMemoryTaskManager(IntervalTimeTable::new, historyManager);
+        Task task = new Task("Task", "Viewed task");
+        taskManager.addNewTask(task);
+
+        taskManager.getById(task.getId());
+        historyManager.flush();
+
+        assertThat(taskManager.historyManager.getHistory()).containsExactly(task);
+    }
+
+    @Test
+    void close_OnTaskManagerShouldStopConsumer() {
+        InMemoryTaskManager taskManager = new InMemoryTaskManager(IntervalTimeTable::new, historyManager);
+        Task task = new Task("Task", "Viewed task");
+        taskManager.addNewTask(task);
+        taskManager.getById(task.getId());
+
+        taskManager.close();
+
+        assertThat(historyManager.getHistory()).containsExactly(task);
+        assertThrows(RuntimeException.class, () -> historyManager.add(task));
+    }
+
+    @Test
+    void getHistory_WithOffsetAndLimitShouldPageSnapshotFromLastView() {
+        Task first = task(1);
+        Task second = task(2);
+        Task third = task(3);
+        historyManager.add(first);
+        historyManager.add(second);
+        historyManager.add(third);
+        historyManager.flush();
+
+        assertThat(historyManager.getHistory(1, 5)).containsExactly(second, first);
+        long cursor = historyManager.getHistoryBefore(Long.MAX_VALUE, 1).get(0).viewNumber();
+        assertThat(historyManager.getHistoryBefore(cursor, 1)).extracting(HistoryEntry::task).containsExactly(second);
+        assertThat(historyManager.descendingIterator()).toIterable().containsExactly(third, second, first);
+    }
+}
@@ -4,17 +4,22 @@ import manager.api.TaskManagerTest;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import task.EpicTask;
 import task.SubTask;
 import task.Task;
+import task.TaskStatus;
+import utils.CSVMapper;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDateTime;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.*;
 
 class FileBackedTasksManagerTest extends TaskManagerTest<FileBackedTasksManager> {
@@ -135,4 +140,170 @@ class FileBackedTasksManagerTest extends TaskManagerTest<FileBackedTasksManager>
 
         assertThat(exception.getMessage()).isEqualTo("Not valid file format");
     }
-}
\ No newline at end of file
+
+    @Test
+    void loadFromFile_ShouldRestoreHistoryFromLogWrittenOnViews() throws IOException {
+        Task task = new Task("Test Task", "This is a test task");
+        taskManager.addNewTask(task);
+        Task task2 = new Task("Test Task2", "This is a test task2");
+        taskManager.addNewTask(task2);
+        taskManager.getById(task2.getId());
+        taskManager.getById(task.getId());
+
+        FileBackedTasksManager restoredManager = taskManager.loadFromFile(tempFilePath.toFile());
+
+        assertThat(Files.readAllLines(tempFilePath)).last().asString().isBlank();
+        assertThat(restoredManager.historyManager.getHistory()).extracting(Task::getId)
+                .containsExactly(task2.getId(), task.getId());
+    }
+
+    @Test
+    void journalMode_ShouldAppendRecordsAndKeepSnapshotUntilCompaction(@TempDir Path tempDir) throws IOException {
+        Path snapshotPath = tempDir.resolve("tasks.csv");
+        Path journalPath = tempDir.resolve("tasks.csv" + FileBackedTasksManager.JOURNAL_SUFFIX);
+        try (FileBackedTasksManager journaledManager = new FileBackedTasksManager(snapshotPath.toString(),
+                IntervalTimeTable::new, StorageMode.JOURNAL)) {
+            Task task = new Task("Test Task", "This is a test task");
+            journaledManager.addNewTask(task);
+            String snapshot = Files.readString(snapshotPath);
+
+            Task task2 = new Task("Test Task2", "This is a test task2");
+            journaledManager.addNewTask(task2);
+            journaledManager.deleteByIdTask(task.getId());
+
+            assertThat(Files.readString(snapshotPath)).isEqualTo(snapshot);
+            assertThat(Files.readAllLines(journalPath)).hasSize(2)
+                    .first().asString().startsWith("U," + task2.getId() + ",TASK");
+
+            journaledManager.compactJournal();
+
+            assertThat(Files.readString(journalPath)).isEmpty();
+            assertThat(Files.readString(snapshotPath)).contains("Test Task2").doesNotContain("Test Task,");
+        }
+    }
+
+    @Test
+    void loadFromFile_InJournalModeShouldReplayJournalOverSnapshot(@TempDir Path tempDir) {
+        LocalDateTime startTime = LocalDateTime.of(2023, 9, 29, 10, 0, 0);
+        Path snapshotPath = tempDir.resolve("tasks.csv");
+        try (FileBackedTasksManager journaledManager = new FileBackedTasksManager(snapshotPath.toString(),
+                IntervalTimeTable::new, StorageMode.JOURNAL)) {
+            EpicTask epicTask = new EpicTask("Test Epic Task", "This is a test epic task");
+            journaledManager.addNewEpicTask(epicTask);
+            SubTask subTask = new SubTask("Test SubTask", "This is a test subtask", 60, startTime, epicTask.getId());
+            journaledManager.addNewSubTask(subTask);
+            SubTask subTask2 = new SubTask("Test SubTask2", "This is a test subtask2", 60, startTime.plusMinutes(61),
+                    epicTask.getId());
+            journaledManager.addNewSubTask(subTask2);
+            journaledManager.compactJournal();
+            SubTask doneSubTask = new SubTask("Test SubTask", "This is a test subtask", 60, startTime,
+                    epicTask.getId());
+            doneSubTask.setId(subTask.getId());
+            doneSubTask.setStatus(TaskStatus.DONE);
+            journaledManager.updateSubTask(doneSubTask);
+            journaledManager.deleteByIdSubTask(subTask2.getId());
+
+            FileBackedTasksManager restoredManager = journaledManager.loadFromFile(snapshotPath.toFile());
+
+            assertThat(restoredManager.getStorageMode()).isEqualTo(StorageMode.JOURNAL);
+            assertThat(restoredManager.getSubTasks()).containsOnlyKeys(subTask.getId());
+            assertThat(restoredManager.getSubTasks().get(subTask.getId()).getStatus()).isEqualTo(TaskStatus.DONE);
+            EpicTask restoredEpic = restoredManager.getEpicTasks().get(epicTask.getId());
+            assertThat(restoredEpic.getStatus()).isEqualTo(TaskStatus.DONE);
+            assertThat(restoredEpic.getStartTime()).isEqualTo(startTime);
+            assertThat(restoredEpic.getDuration()).isEqualTo(60);
+            assertThat(restoredEpic.getSubTasksId()).containsExactly(subTask.getId());
+            restoredManager.close();
+        }
+    }
+
+    @Test
+    void loadFromFile_InJournalModeShouldCloseManagerOfSameFile(@TempDir Path tempDir) throws IOException {
+        Path snapshotPath = tempDir.resolve("tasks.csv");
+        Path journalPath = tempDir.resolve("tasks.csv" + FileBackedTasksManager.JOURNAL_SUFFIX);
+        FileBackedTasksManager journaledManager = new FileBackedTasksManager(snapshotPath.toString(),
+                IntervalTimeTable::new, StorageMode.JOURNAL);
+        journaledManager.addNewTask(new Task("Test Task", "This is a test task"));
+        Task task2 = new Task("Test Task2", "This is a test task2");
+        journaledManager.addNewTask(task2);
+
+        try (FileBackedTasksManager restoredManager = journaledManager.loadFromFile(snapshotPath.toFile())) {
+            assertThatThrownBy(() -> journaledManager.addNewTask(new Task("Test Task3", "This is a test task3")))
+                    .isInstanceOf(ManagerSaveException.class);
+            restoredManager.deleteByIdTask(task2.getId());
+
+            assertThat(Files.readAllLines(journalPath)).containsExactly(
+                    "U," + CSVMapper.taskToString(task2), "D," + task2.getId());
+        }
+    }
+
+    @Test
+    void constructor_ShouldRejectBatchingPolicyInSnapshotMode(@TempDir Path tempDir) {
+        String snapshotPath = tempDir.resolve("tasks.csv").toString();
+
+        assertThatThrownBy(() -> new FileBackedTasksManager(snapshotPath, IntervalTimeTable::new, StorageMode.SNAPSHOT,
+                DurabilityPolicy.groupCommit(Duration.ofMillis(5), 64)))
+                .hasMessage("Durability policy GROUP_COMMIT requires JOURNAL storage mode");
+    }
+
+    @Test
+    void asyncPolicy_ShouldKeepChangesInMemoryUntilFlushAndRestoreThem(@TempDir Path tempDir) throws IOException {
+        Path snapshotPath = tempDir.resolve("tasks.csv");
+        Path journalPath = tempDir.resolve("tasks.csv" + FileBackedTasksManager.JOURNAL_SUFFIX);
+        try (FileBackedTasksManager journaledManager = new FileBackedTasksManager(snapshotPath.toString(),
+                IntervalTimeTable::new, StorageMode.JOURNAL, DurabilityPolicy.async(Duration.ofHours(1), 100))) {
+            Task task = new Task("Test Task", "This is a test task");
+            journaledManager.addNewTask(task);
+            Task task2 = new Task("Test Task2", "This is a test task2");
+            journaledManager.addNewTask(task2);
+
+            assertThat(Files.readString(journalPath)).isEmpty();
+
+            journaledManager.flush();
+
+            assertThat(Files.readAllLines(journalPath)).hasSize(1)
+                    .first().asString().startsWith("U," + task2.getId() + ",TASK");
+            FileBackedTasksManager restoredManager = journaledManager.loadFromFile(snapshotPath.toFile());
+            assertThat(restoredManager.getDurabilityPolicy()).isEqualTo(journaledManager.getDurabilityPolicy());
+            assertThat(restoredManager.getTasks()).containsOnlyKeys(task.getId(), task2.getId());
+            restoredManager.close();
+        }
+    }
+
+    @Test
+    void groupCommitPolicy_ShouldHaveChangesInJournalAfterAwaitDurable(@TempDir Path tempDir) throws IOException {
+        Path snapshotPath = tempDir.resolve("tasks.csv");
+        Path journalPath = tempDir.resolve("tasks.csv" + FileBackedTasksManager.JOURNAL_SUFFIX);
+        try (FileBackedTasksManager journaledManager = new FileBackedTasksManager(snapshotPath.toString(),
+                IntervalTimeTable::new, StorageMode.JOURNAL, DurabilityPolicy.groupCommit(Duration.ofMillis(2), 64))) {
+            journaledManager.addNewTask(new Task("Test Task", "This is a test task"));
+            Task task2 = new Task("Test Task2", "This is a test task2");
+            journaledManager.addNewTask(task2);
+            journaledManager.deleteByIdTask(task2.getId());
+
+            journaledManager.awaitDurable();
+
+            assertThat(Files.readAllLines(journalPath)).containsExactly(
+                    "U," + CSVMapper.taskToString(task2), "D," + task2.getId());
+        }
+    }
+
+    @Test
+    void groupCommitPolicy_ShouldWriteChangesOfOneThreadAsOneBatch(@TempDir Path tempDir) throws IOException {
+        Path snapshotPath = tempDir.resolve("tasks.csv");
+        Path journalPath = tempDir.resolve("tasks.csv" + FileBackedTasksManager.JOURNAL_SUFFIX);
+        try (FileBackedTasksManager journaledManager = new FileBackedTasksManager(snapshotPath.toString(),
+                IntervalTimeTable::new, StorageMode.JOURNAL, DurabilityPolicy.groupCommit(Duration.ofHours(1), 3))) {
+            journaledManager.addNewTask(new Task("Test Task", "This is a test task"));
+            journaledManager.addNewTask(new Task("Test Task2", "This is a test task2"));
+            journaledManager.addNewTask(new Task("Test Task3", "This is a test task3"));
+
+            assertThat(Files.readString(journalPath)).isEmpty();
+
+            journaledManager.addNewTask(new Task("Test Task4", "This is a test task4"));
+            journaledManager.awaitDurable();
+
+            assertThat(Files.readAllLines(journalPath)).hasSize(3);
+        }
+    }
+}
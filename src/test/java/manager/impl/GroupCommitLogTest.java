@@ -0,0 +1,119 @@
+package manager.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GroupCommitLogTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void append_InSyncModeShouldWriteRecordBeforeReturning() throws IOException {
+        try (GroupCommitLog log = new GroupCommitLog(tempDir.resolve("journal.log"), DurabilityPolicy.sync())) {
+            log.append("U,1\n");
+            log.append("D,1\n");
+
+            assertThat(Files.readString(log.getPath())).isEqualTo("U,1\nD,1\n");
+        }
+    }
+
+    @Test
+    void append_InGroupCommitModeShouldReturnAfterRecordsOfAllThreadsAreOnDisk() throws Exception {
+        DurabilityPolicy policy = DurabilityPolicy.groupCommit(Duration.ofMillis(5), 16);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try (GroupCommitLog log = new GroupCommitLog(tempDir.resolve("journal.log"), policy)) {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                int writer = thread;
+                writers.add(executor.submit(() -> {
+                    for (int i = 0; i < 25; i++) {
+                        log.append("U," + writer + "-" + i + "\n");
+                    }
+                }));
+            }
+            for (Future<?> future : writers) {
+                future.get();
+            }
+
+            List<String> records = Files.readAllLines(log.getPath());
+            assertThat(records).hasSize(100).doesNotHaveDuplicates();
+            assertThat(records.stream().filter(record -> record.startsWith("U,2-"))
+                    .map(record -> Integer.parseInt(record.substring(4))).toList()).isSorted();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void enqueue_InAsyncModeShouldKeepRecordsUntilWindowEndsOrFlush() throws IOException {
+        DurabilityPolicy policy = DurabilityPolicy.async(Duration.ofHours(1), 100);
+        try (GroupCommitLog log = new GroupCommitLog(tempDir.resolve("journal.log"), policy)) {
+            log.append("U,1\n");
+            log.awaitCommit(log.enqueue("U,2\n"));
+
+            assertThat(log.getPath()).doesNotExist();
+
+            log.flush();
+
+            assertThat(Files.readString(log.getPath())).isEqualTo("U,1\nU,2\n");
+        }
+    }
+
+    @Test
+    void enqueue_ShouldWriteBatchWhenMaxBatchRecordsArePending() throws InterruptedException {
+        DurabilityPolicy policy = DurabilityPolicy.async(Duration.ofHours(1), 3);
+        try (GroupCommitLog log = new GroupCommitLog(tempDir.resolve("journal.log"), policy)) {
+            log.enqueue("U,1\n");
+            log.enqueue("U,2\n");
+            log.enqueue("U,3\n");
+
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (!Files.exists(log.getPath()) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertThat(log.getPath()).hasContent("U,1\nU,2\nU,3");
+        }
+    }
+
+    @Test
+    void readAndRewrite_ShouldSeePendingRecordsAndDropThemOnRewrite() {
+        DurabilityPolicy policy = DurabilityPolicy.async(Duration.ofHours(1), 100);
+        try (GroupCommitLog log = new GroupCommitLog(tempDir.resolve("journal.log"), policy)) {
+            log.enqueue("U,1\n");
+
+            assertThat(log.read()).isEqualTo("U,1\n");
+
+            log.enqueue("U,2\n");
+            log.rewrite("U,3\n");
+            log.enqueue("U,4\n");
+
+            assertThat(log.read()).isEqualTo("U,3\nU,4\n");
+        }
+    }
+
+    @Test
+    void close_ShouldWritePendingRecordsAndRejectNewOnes() throws IOException {
+        GroupCommitLog log = new GroupCommitLog(tempDir.resolve("journal.log"),
+                DurabilityPolicy.async(Duration.ofHours(1), 100));
+        log.enqueue("U,1\n");
+
+        log.close();
+
+        assertThat(Files.readString(log.getPath())).isEqualTo("U,1\n");
+        assertThatThrownBy(() -> log.enqueue("U,2\n")).isInstanceOf(ManagerSaveException.class);
+    }
+}
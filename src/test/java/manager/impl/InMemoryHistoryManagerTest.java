@@ -1,11 +1,14 @@
 package manager.impl;
 
+import manager.api.HistoryEntry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import task.EpicTask;
 import task.SubTask;
 import task.Task;
 
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 
@@ -142,4 +145,100 @@ class InMemoryHistoryManagerTest {
         assertFalse(historyAfterRemove.contains(subTask2));
         assertFalse(historyAfterRemove.contains(subTask));
     }
-}
\ No newline at end of file
+
+    @Test
+    void add_WhenHistoryIsFullThenLeastRecentlyViewedTaskEvicted() {
+        InMemoryHistoryManager boundedHistory = new InMemoryHistoryManager(3);
+        boundedHistory.add(task);
+        boundedHistory.add(epicTask);
+        boundedHistory.add(subTask);
+        boundedHistory.add(task);
+
+        boundedHistory.add(subTask2);
+
+        assertThat(boundedHistory.getHistory()).containsExactly(subTask, task, subTask2);
+        assertThat(boundedHistory.size()).isEqualTo(3);
+    }
+
+    @Test
+    void add_ShouldReuseSlotsAfterRemoveAndEviction() {
+        InMemoryHistoryManager boundedHistory = new InMemoryHistoryManager(40);
+        for (long i = 1; i <= 100; i++) {
+            Task viewed = new Task("Task" + i, "Viewed task");
+            viewed.setId(i);
+            boundedHistory.add(viewed);
+            if (i % 3 == 0) {
+                boundedHistory.remove(i - 1);
+            }
+        }
+
+        List<Task> history = boundedHistory.getHistory();
+        assertThat(history).hasSize(boundedHistory.size()).hasSizeLessThanOrEqualTo(40);
+        assertThat(history.get(history.size() - 1).getId()).isEqualTo(100);
+        assertThat(history).extracting(Task::getId).doesNotContain(98L, 95L).isSorted();
+    }
+
+    @Test
+    void constructor_ShouldThrowExceptionIfCapacityIsNotPositive() {
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> new InMemoryHistoryManager(0));
+
+        assertThat(exception.getMessage()).isEqualTo("History capacity must be positive");
+    }
+
+    @Test
+    void getHistory_WithOffsetAndLimitShouldReturnPageFromLastView() {
+        historyManager.add(task);
+        historyManager.add(epicTask);
+        historyManager.add(subTask);
+        historyManager.add(subTask2);
+
+        assertThat(historyManager.getHistory(0, 2)).containsExactly(subTask2, subTask);
+        assertThat(historyManager.getHistory(2, 5)).containsExactly(epicTask, task);
+        assertThat(historyManager.getHistory(10, 5)).isEmpty();
+        assertThrows(RuntimeException.class, () -> historyManager.getHistory(-1, 5));
+    }
+
+    @Test
+    void getHistoryBefore_ShouldContinueFromCursorViewNumber() {
+        historyManager.add(task);
+        historyManager.add(epicTask);
+        historyManager.add(subTask);
+
+        List<HistoryEntry> firstPage = historyManager.getHistoryBefore(Long.MAX_VALUE, 1);
+        assertThat(firstPage).extracting(HistoryEntry::task).containsExactly(subTask);
+        long cursor = firstPage.get(0).viewNumber();
+
+        assertThat(historyManager.getHistoryBefore(cursor, 1)).extracting(HistoryEntry::task).containsExactly(epicTask);
+        assertThat(historyManager.getHistoryBefore(1, 5)).isEmpty();
+    }
+
+    @Test
+    void getHistoryBefore_WhenCursorTaskViewedOrRemovedThenNextPageNotShifted() {
+        historyManager.add(task);
+        historyManager.add(epicTask);
+        historyManager.add(subTask);
+        long cursor = historyManager.getHistoryBefore(Long.MAX_VALUE, 1).get(0).viewNumber();
+
+        historyManager.add(subTask);
+
+        assertThat(historyManager.getHistoryBefore(cursor, 5)).extracting(HistoryEntry::task)
+                .containsExactly(epicTask, task);
+
+        historyManager.remove(subTask.getId());
+
+        assertThat(historyManager.getHistoryBefore(cursor, 5)).extracting(HistoryEntry::task)
+                .containsExactly(epicTask, task);
+    }
+
+    @Test
+    void descendingIterator_ShouldWalkFromLastViewAndFailOnModification() {
+        historyManager.add(task);
+        historyManager.add(epicTask);
+
+        Iterator<Task> iterator = historyManager.descendingIterator();
+
+        assertThat(iterator.next()).isEqualTo(epicTask);
+        historyManager.add(subTask);
+        assertThrows(ConcurrentModificationException.class, iterator::next);
+    }
+}
@@ -9,7 +9,6 @@ import task.Task;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -23,13 +22,107 @@ class InMemoryTaskManagerTest extends TaskManagerTest<InMemoryTaskManager> {
     }
 
     @Test
-    void generateTimeTable_WhenCalledThenReturnCorrectMap() {
-        Map<Long, Long> timeTable = taskManager.generateTimeTable();
-        long last15MinPoint = 525585;
-        System.out.println(timeTable.size());
+    void checkIntersections_ShouldReturnFalseIfTaskFullyContainsExistingTask() {
+        LocalDateTime startTime = LocalDateTime.of(2023, 9, 29, 10, 0, 0);
+        Task shortTask = new Task("Short Task", "This is a short task", 30, startTime.plusHours(2));
+        taskManager.addNewTask(shortTask);
+
+        Task longTask = new Task("Long Task", "This is a long task", 60 * 24 * 14, startTime);
+        taskManager.addNewTask(longTask);
+
+        assertTrue(taskManager.getTasks().containsKey(shortTask.getId()));
+        assertFalse(taskManager.getTasks().containsValue(longTask));
+    }
+
+    @Test
+    void deleteByIdEpicTasks_ShouldFreeTimeAndHistoryOfAllSubTasks() {
+        LocalDateTime startTime = LocalDateTime.of(2023, 9, 29, 10, 0, 0);
+        Task task = new Task("Test Task", "This is a test task", 30, startTime.minusHours(1));
+        taskManager.addNewTask(task);
+        EpicTask epicTask = new EpicTask("Test Epic Task", "This is a test epic task");
+        taskManager.addNewEpicTask(epicTask);
+        for (int i = 0; i < 1000; i++) {
+            SubTask subTask = new SubTask("SubTask " + i, "This is a test subtask", 30,
+                    startTime.plusHours(i), epicTask.getId());
+            taskManager.addNewSubTask(subTask);
+            taskManager.getByIdSubTask(subTask.getId());
+        }
+        taskManager.getById(task.getId());
+        taskManager.getByIdEpicTask(epicTask.getId());
+
+        taskManager.deleteByIdEpicTasks(epicTask.getId());
+
+        assertThat(taskManager.getSubTasks()).isEmpty();
+        assertThat(taskManager.historyManager.getHistory()).containsExactly(task);
+        assertThat(taskManager.getOrderedTasksByStartTime()).containsExactly(task);
+        assertTrue(taskManager.checkIntersections(new Task("New Task", "Takes freed time", 60, startTime)));
+        assertFalse(taskManager.checkIntersections(new Task("New Task", "Crosses task", 60, startTime.minusHours(1))));
+    }
+
+    @Test
+    void removeAllTasks_ShouldFreeTimeOfRemovedTasks() {
+        LocalDateTime startTime = LocalDateTime.of(2023, 9, 29, 10, 0, 0);
+        taskManager.addNewTask(new Task("Test Task", "This is a test task", 60, startTime));
+
+        taskManager.removeAllTasks();
+        Task task = new Task("Test Task2", "This is a test task2", 60, startTime);
+        taskManager.addNewTask(task);
+
+        assertTrue(taskManager.getTasks().containsKey(task.getId()));
+    }
+
+    @Test
+    void checkIntersections_ShouldWorkForTasksOutsideOfCurrentYear() {
+        LocalDateTime startTime = LocalDateTime.of(2031, 2, 14, 10, 0, 0);
+        Task task = new Task("Test Task", "This is a test task", 60, startTime);
+        taskManager.addNewTask(task);
+        Task task2 = new Task("Test Task2", "This is a test task2", 60, startTime.minusYears(10));
+        taskManager.addNewTask(task2);
 
-        assertThat(timeTable).containsKey(0L);
-        assertThat(timeTable).containsKey(last15MinPoint);
+        Task task3 = new Task("Test Task3", "This is a test task3", 60, startTime.plusMinutes(30));
+        taskManager.addNewTask(task3);
+
+        assertTrue(taskManager.getTasks().containsKey(task.getId()));
+        assertTrue(taskManager.getTasks().containsKey(task2.getId()));
+        assertFalse(taskManager.getTasks().containsValue(task3));
+    }
+
+    @Test
+    void checkIntersections_ShouldAllowSameTimeForDifferentAssignees() {
+        LocalDateTime startTime = LocalDateTime.of(2023, 9, 29, 10, 0, 0);
+        Task task = new Task("Test Task", "This is a test task", 60, startTime);
+        task.setAssignee("alice");
+        taskManager.addNewTask(task);
+        Task task2 = new Task("Test Task2", "This is a test task2", 60, startTime);
+        task2.setAssignee("bob");
+        taskManager.addNewTask(task2);
+        Task task3 = new Task("Test Task3", "This is a test task3", 60, startTime.plusMinutes(30));
+        task3.setAssignee("alice");
+        taskManager.addNewTask(task3);
+
+        assertTrue(taskManager.getTasks().containsKey(task.getId()));
+        assertTrue(taskManager.getTasks().containsKey(task2.getId()));
+        assertFalse(taskManager.getTasks().containsValue(task3));
+    }
+
+    @Test
+    void updateTask_ShouldMoveTaskToTimelineOfNewAssignee() {
+        LocalDateTime startTime = LocalDateTime.of(2023, 9, 29, 10, 0, 0);
+        Task task = new Task("Test Task", "This is a test task", 60, startTime);
+        task.setAssignee("alice");
+        taskManager.addNewTask(task);
+
+        Task updatedTask = new Task("Test Task", "This is a test task", 60, startTime);
+        updatedTask.setId(task.getId());
+        updatedTask.setAssignee("bob");
+        taskManager.updateTask(updatedTask);
+        Task task2 = new Task("Test Task2", "This is a test task2", 60, startTime);
+        task2.setAssignee("alice");
+        taskManager.addNewTask(task2);
+
+        assertTrue(taskManager.getTasks().containsKey(task2.getId()));
+        assertThat(taskManager.getFreeSlots(startTime, 30, 1, "bob"))
+                .containsExactly(startTime.plusMinutes(61));
     }
 
     @Test
@@ -136,7 +229,7 @@ class InMemoryTaskManagerTest extends TaskManagerTest<InMemoryTaskManager> {
         taskManager.addNewSubTask(subTask2);
 
         SubTask subTask3 = new SubTask("Test SubTask3", "This is a test subtask2", 60,
-                startTime.plusMinutes(121), epicTask.getId());
+                startTime.plusMinutes(122), epicTask.getId());
         taskManager.addNewSubTask(subTask3);
 
         assertTrue(taskManager.getSubTasks().containsKey(subTask.getId()));
@@ -0,0 +1,120 @@
+package manager.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import utils.LongLinkedHashSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntervalTimeTableTest {
+    private IntervalTimeTable timeTable;
+
+    @BeforeEach
+    void setUp() {
+        timeTable = new IntervalTimeTable();
+    }
+
+    @Test
+    void isFree_WhenIntervalsTouchOnEdgeThenReturnFalse() {
+        timeTable.add(600, 660, 1);
+
+        assertFalse(timeTable.isFree(660, 720));
+        assertFalse(timeTable.isFree(540, 600));
+        assertTrue(timeTable.isFree(661, 720));
+        assertTrue(timeTable.isFree(539, 599));
+    }
+
+    @Test
+    void isFree_WhenIntervalContainsOrIsContainedThenReturnFalse() {
+        timeTable.add(600, 660, 1);
+
+        assertFalse(timeTable.isFree(0, 100_000));
+        assertFalse(timeTable.isFree(610, 620));
+    }
+
+    @Test
+    void findOverlaps_ShouldReturnIdsOfAllCrossingIntervalsOrderedByStart() {
+        for (long i = 0; i < 1000; i++) {
+            timeTable.add(i * 100, i * 100 + 50, i);
+        }
+
+        assertThat(timeTable.findOverlaps(1040, 1320)).containsExactly(10L, 11L, 12L, 13L);
+        assertThat(timeTable.findOverlaps(1051, 1099)).isEmpty();
+        assertThat(timeTable.size()).isEqualTo(1000);
+    }
+
+    @Test
+    void remove_ShouldFreeIntervalAndKeepOthers() {
+        for (long i = 0; i < 1000; i++) {
+            timeTable.add(i * 100, i * 100 + 50, i);
+        }
+        for (long i = 0; i < 1000; i += 2) {
+            timeTable.remove(i * 100, i * 100 + 50, i);
+        }
+
+        assertThat(timeTable.size()).isEqualTo(500);
+        assertTrue(timeTable.isFree(0, 50));
+        assertFalse(timeTable.isFree(100, 150));
+        assertThat(timeTable.findOverlaps(0, 1000)).containsExactly(1L, 3L, 5L, 7L, 9L);
+    }
+
+    @Test
+    void removeAll_ShouldRemoveIntervalsOfAllIdsAndKeepTreeSearchable() {
+        LongLinkedHashSet removedIds = new LongLinkedHashSet();
+        for (long i = 0; i < 1000; i++) {
+            timeTable.add(i * 100, i * 100 + 50, i);
+            if (i % 3 != 0) {
+                removedIds.add(i);
+            }
+        }
+        removedIds.add(5000L);
+
+        timeTable.removeAll(removedIds);
+
+        assertThat(timeTable.size()).isEqualTo(334);
+        assertThat(timeTable.findOverlaps(0, 1000)).containsExactly(0L, 3L, 6L, 9L);
+        assertTrue(timeTable.isFree(100, 250));
+        assertFalse(timeTable.isFree(99_900, 99_900));
+        assertThat(timeTable.getOccupiedMinutes(0, 100_000)).isEqualTo(334 * 50);
+        assertThat(timeTable.findFreeWindows(0, 60, 1)).containsExactly(51L);
+    }
+
+    @Test
+    void remove_NoModificationIfIntervalIsNotExist() {
+        timeTable.add(600, 660, 1);
+
+        timeTable.remove(600, 660, 2);
+
+        assertThat(timeTable.size()).isEqualTo(1);
+        assertFalse(timeTable.isFree(600, 660));
+    }
+
+    @Test
+    void findFreeWindows_ShouldSkipGapsShorterThanDuration() {
+        timeTable.add(100, 200, 1);
+        timeTable.add(230, 300, 2);
+        timeTable.add(150, 260, 3);
+        timeTable.add(400, 500, 4);
+
+        assertThat(timeTable.findFreeWindows(0, 50, 5)).containsExactly(0L, 301L, 501L);
+        assertThat(timeTable.findFreeWindows(120, 98, 5)).containsExactly(301L, 501L);
+        assertThat(timeTable.findFreeWindows(120, 99, 1)).containsExactly(501L);
+    }
+
+    @Test
+    void getOccupiedMinutes_ShouldCountMinutesOfIntervalsClippedByRange() {
+        timeTable.add(100, 200, 1);
+        timeTable.add(300, 360, 2);
+        timeTable.add(1000, 1000, 3);
+
+        assertThat(timeTable.getOccupiedMinutes(0, 10_000)).isEqualTo(160);
+        assertThat(timeTable.getOccupiedMinutes(150, 330)).isEqualTo(80);
+        assertThat(timeTable.getOccupiedMinutes(200, 300)).isEqualTo(0);
+
+        timeTable.remove(100, 200, 1);
+
+        assertThat(timeTable.getOccupiedMinutes(0, 10_000)).isEqualTo(60);
+    }
+}
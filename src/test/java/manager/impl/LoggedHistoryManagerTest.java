@@ -0,0 +1,72 @@
+package manager.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import task.Task;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoggedHistoryManagerTest {
+
+    @TempDir
+    Path tempDir;
+    private final Map<Long, Task> taskStore = new HashMap<>();
+    private FileLogStore logStore;
+
+    @BeforeEach
+    void setUp() {
+        for (long id = 1; id <= 5; id++) {
+            Task task = new Task("Task" + id, "Viewed task");
+            task.setId(id);
+            taskStore.put(id, task);
+        }
+        logStore = new FileLogStore(tempDir.resolve("history.log"));
+    }
+
+    @Test
+    void add_ShouldRewriteStaleLogOnFirstChangeAndAppendAfterwards() throws IOException {
+        Files.writeString(logStore.getPath(), "+4\n+5\n");
+        LoggedHistoryManager historyManager = new LoggedHistoryManager(new InMemoryHistoryManager(), logStore);
+
+        historyManager.add(taskStore.get(1L));
+        historyManager.add(taskStore.get(2L));
+        historyManager.remove(1);
+
+        assertThat(Files.readString(logStore.getPath())).isEqualTo("+1\n+2\n-1\n");
+    }
+
+    @Test
+    void restore_ShouldReplayLogAndSkipDeletedTasks() throws IOException {
+        Files.writeString(logStore.getPath(), "+1\n+2\n+3\n+1\n-2\n+4\n");
+        taskStore.remove(4L);
+        LoggedHistoryManager historyManager = new LoggedHistoryManager(new InMemoryHistoryManager(), logStore);
+
+        historyManager.restore(taskStore::get);
+
+        assertThat(historyManager.getHistory()).extracting(Task::getId).containsExactly(3L, 1L);
+        assertThat(Files.readString(logStore.getPath())).isEqualTo("+3\n+1\n");
+    }
+
+    @Test
+    void add_ShouldCompactLogWhenItGrowsPastThreshold() throws IOException {
+        LoggedHistoryManager historyManager = new LoggedHistoryManager(new InMemoryHistoryManager(), logStore);
+
+        for (int i = 0; i <= LoggedHistoryManager.COMPACTION_THRESHOLD; i++) {
+            historyManager.add(taskStore.get(1L + i % 2));
+        }
+
+        List<String> records = Files.readAllLines(logStore.getPath());
+        assertThat(records).hasSizeLessThan(LoggedHistoryManager.COMPACTION_THRESHOLD);
+        LoggedHistoryManager restored = new LoggedHistoryManager(new InMemoryHistoryManager(), logStore);
+        restored.restore(taskStore::get);
+        assertThat(restored.getHistory()).isEqualTo(historyManager.getHistory());
+    }
+}
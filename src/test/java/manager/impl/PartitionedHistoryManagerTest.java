@@ -0,0 +1,101 @@
+package manager.impl;
+
+import manager.api.HistoryEntry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import task.Task;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PartitionedHistoryManagerTest {
+
+    private final Map<Long, Task> taskStore = new HashMap<>();
+    private final AtomicLong clock = new AtomicLong();
+    private PartitionedHistoryManager historyManager;
+
+    @BeforeEach
+    void setUp() {
+        for (long id = 1; id <= 5; id++) {
+            Task task = new Task("Task" + id, "Shared task");
+            task.setId(id);
+            taskStore.put(id, task);
+        }
+        historyManager = new PartitionedHistoryManager(taskStore::get, 3, 2, Duration.ofMinutes(10), clock::get);
+    }
+
+    @Test
+    void add_ShouldKeepSeparateHistoryForEachUser() {
+        historyManager.add("alice", 1);
+        historyManager.add("bob", 2);
+        historyManager.add("alice", 3);
+        historyManager.add("alice", 1);
+
+        assertThat(historyManager.getHistory("alice")).extracting(Task::getId).containsExactly(3L, 1L);
+        assertThat(historyManager.getHistory("bob")).extracting(Task::getId).containsExactly(2L);
+        assertThat(historyManager.getHistory("carol")).isEmpty();
+    }
+
+    @Test
+    void add_WhenPartitionIsFullThenLeastRecentlyViewedIdEvicted() {
+        for (long id = 1; id <= 5; id++) {
+            historyManager.add("alice", id);
+        }
+
+        assertThat(historyManager.getHistory("alice", 0, 10)).extracting(Task::getId).containsExactly(5L, 4L, 3L);
+        assertThat(historyManager.getHistory("alice", 1, 1)).extracting(Task::getId).containsExactly(4L);
+        long cursor = historyManager.getHistoryBefore("alice", Long.MAX_VALUE, 2).get(1).viewNumber();
+        assertThat(historyManager.getHistoryBefore("alice", cursor, 10)).extracting(HistoryEntry::task)
+                .extracting(Task::getId).containsExactly(3L);
+    }
+
+    @Test
+    void getHistory_ShouldSkipTasksDeletedFromStore() {
+        historyManager.add("alice", 1);
+        historyManager.add("alice", 2);
+
+        taskStore.remove(1L);
+
+        assertThat(historyManager.getHistory("alice")).extracting(Task::getId).containsExactly(2L);
+
+        taskStore.put(1L, new Task("Task1", "Restored task"));
+        historyManager.add("alice", 3);
+        historyManager.add("alice", 4);
+
+        assertThat(historyManager.getHistory("alice")).extracting(Task::getId).containsExactly(2L, 3L, 4L);
+    }
+
+    @Test
+    void add_WhenPartitionCountReachesLimitThenLeastRecentlyActiveEvicted() {
+        historyManager.add("alice", 1);
+        clock.addAndGet(1);
+        historyManager.add("bob", 2);
+        clock.addAndGet(1);
+        historyManager.add("alice", 3);
+        clock.addAndGet(1);
+
+        historyManager.add("carol", 4);
+
+        assertThat(historyManager.size()).isEqualTo(2);
+        assertThat(historyManager.getHistory("bob")).isEmpty();
+        assertThat(historyManager.getHistory("alice")).extracting(Task::getId).containsExactly(1L, 3L);
+    }
+
+    @Test
+    void evictIdle_ShouldRemoveOnlyPartitionsIdleLongerThanTimeout() {
+        historyManager.add("alice", 1);
+        clock.addAndGet(Duration.ofMinutes(6).toNanos());
+        historyManager.add("bob", 2);
+        clock.addAndGet(Duration.ofMinutes(6).toNanos());
+
+        historyManager.add("bob", 3);
+
+        assertThat(historyManager.size()).isEqualTo(1);
+        assertThat(historyManager.getHistory("alice")).isEmpty();
+        assertThat(historyManager.getHistory("bob")).extracting(Task::getId).containsExactly(2L, 3L);
+    }
+}
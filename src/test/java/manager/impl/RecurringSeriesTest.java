@@ -0,0 +1,50 @@
+package manager.impl;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecurringSeriesTest {
+    private static final long DAY = 24 * 60;
+
+    @Test
+    void overlaps_ShouldCheckIntervalAgainstNearestOccurrence() {
+        RecurringSeries series = new RecurringSeries(600, 15, 1, 600 + 364 * DAY);
+
+        assertTrue(series.overlaps(600 + 100 * DAY + 15, 600 + 100 * DAY + 60));
+        assertFalse(series.overlaps(600 + 100 * DAY + 16, 600 + 101 * DAY - 1));
+        assertFalse(series.overlaps(600 + 365 * DAY, 600 + 365 * DAY + 15));
+        assertFalse(series.overlaps(0, 599));
+    }
+
+    @Test
+    void overlaps_ShouldFindCrossingOccurrencesOfTwoSeries() {
+        RecurringSeries weeklyOnMonday = new RecurringSeries(600, 60, 7, 600 + 700 * DAY);
+        RecurringSeries weeklyOnTuesday = new RecurringSeries(600 + DAY, 60, 7, 600 + 700 * DAY);
+        RecurringSeries everyThreeDays = new RecurringSeries(600 + DAY, 60, 3, 600 + 700 * DAY);
+        RecurringSeries endedBefore = new RecurringSeries(600 - 2 * DAY, 60, 1, 600 - DAY);
+
+        assertFalse(weeklyOnMonday.overlaps(weeklyOnTuesday));
+        assertTrue(weeklyOnMonday.overlaps(everyThreeDays));
+        assertTrue(everyThreeDays.overlaps(weeklyOnMonday));
+        assertFalse(weeklyOnMonday.overlaps(endedBefore));
+    }
+
+    @Test
+    void isSelfOverlapping_ShouldReturnTrueIfDurationIsNotShorterThanInterval() {
+        assertTrue(new RecurringSeries(0, DAY, 1, 10 * DAY).isSelfOverlapping());
+        assertFalse(new RecurringSeries(0, DAY, 1, 0).isSelfOverlapping());
+        assertFalse(new RecurringSeries(0, DAY - 1, 1, 10 * DAY).isSelfOverlapping());
+    }
+
+    @Test
+    void findStartsBetween_ShouldReturnOnlyOccurrencesInsidePeriod() {
+        RecurringSeries series = new RecurringSeries(600, 15, 2, 600 + 364 * DAY);
+
+        assertThat(series.findStartsBetween(600 + 10 * DAY, 600 + 15 * DAY))
+                .containsExactly(600 + 10 * DAY, 600 + 12 * DAY, 600 + 14 * DAY);
+        assertThat(series.getOccupiedMinutes(600 + 10 * DAY + 5, 600 + 15 * DAY)).isEqualTo(40);
+    }
+}
@@ -0,0 +1,134 @@
+package manager.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import task.Task;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlotTimeTableTest {
+    private static final long ORIGIN = LocalDateTime.of(2023, 1, 1, 0, 0, 0).toEpochSecond(ZoneOffset.UTC) / 60;
+    private SlotTimeTable timeTable;
+
+    @BeforeEach
+    void setUp() {
+        timeTable = new SlotTimeTable();
+    }
+
+    @Test
+    void isFree_WhenTaskFullyContainsOtherTaskThenReturnFalse() {
+        timeTable.add(ORIGIN + 6000, ORIGIN + 6060, 1);
+
+        assertFalse(timeTable.isFree(ORIGIN, ORIGIN + 60 * 24 * 30));
+        assertTrue(timeTable.isFree(ORIGIN + 6075, ORIGIN + 60 * 24 * 30));
+    }
+
+    @Test
+    void add_ShouldOccupySlotsAcrossWordBoundaries() {
+        long start = ORIGIN + 15 * 60;
+        long end = ORIGIN + 15 * 200;
+        timeTable.add(start, end, 7);
+
+        assertThat(timeTable.findOverlaps(ORIGIN, ORIGIN + 15 * 1000)).containsExactly(7L);
+        assertFalse(timeTable.isFree(ORIGIN + 15 * 130, ORIGIN + 15 * 130));
+        assertTrue(timeTable.isFree(ORIGIN + 15 * 201, ORIGIN + 15 * 300));
+        assertTrue(timeTable.isFree(ORIGIN, ORIGIN + 15 * 59));
+    }
+
+    @Test
+    void remove_ShouldFreeOnlySlotsOfRemovedTask() {
+        timeTable.add(ORIGIN, ORIGIN + 60, 1);
+        timeTable.add(ORIGIN + 75, ORIGIN + 120, 2);
+
+        timeTable.remove(ORIGIN, ORIGIN + 120, 1);
+
+        assertThat(timeTable.size()).isEqualTo(1);
+        assertTrue(timeTable.isFree(ORIGIN, ORIGIN + 60));
+        assertThat(timeTable.findOverlaps(ORIGIN, ORIGIN + 120)).containsExactly(2L);
+    }
+
+    @Test
+    void removeAll_ShouldFreeSlotsOfAllIdsAndReleaseEmptyPages() {
+        long farFuture = LocalDateTime.of(2031, 5, 1, 10, 0, 0).toEpochSecond(ZoneOffset.UTC) / 60;
+        timeTable.add(ORIGIN, ORIGIN + 60, 1);
+        timeTable.add(ORIGIN + 75, ORIGIN + 120, 2);
+        timeTable.add(farFuture, farFuture + 60, 3);
+
+        timeTable.removeAll(List.of(1L, 3L, 4L));
+
+        assertThat(timeTable.size()).isEqualTo(1);
+        assertThat(timeTable.getPageCount()).isEqualTo(1);
+        assertTrue(timeTable.isFree(ORIGIN, ORIGIN + 60));
+        assertThat(timeTable.findOverlaps(ORIGIN, farFuture + 60)).containsExactly(2L);
+    }
+
+    @Test
+    void add_ShouldAllocatePagesOnlyForUsedTimeAndReleaseEmptyPages() {
+        long farFuture = LocalDateTime.of(2031, 5, 1, 10, 0, 0).toEpochSecond(ZoneOffset.UTC) / 60;
+        timeTable.add(ORIGIN, ORIGIN + 60, 1);
+        timeTable.add(farFuture, farFuture + 60, 2);
+
+        assertThat(timeTable.getPageCount()).isEqualTo(2);
+        assertFalse(timeTable.isFree(farFuture + 30, farFuture + 90));
+        assertThat(timeTable.findOverlaps(ORIGIN, farFuture + 60)).containsExactly(1L, 2L);
+
+        timeTable.remove(farFuture, farFuture + 60, 2);
+
+        assertThat(timeTable.getPageCount()).isEqualTo(1);
+        assertTrue(timeTable.isFree(farFuture, farFuture + 60));
+    }
+
+    @Test
+    void add_ShouldOccupySlotsAcrossPageBoundary() {
+        long pageEnd = 15L * 4096 * 1000;
+        timeTable.add(pageEnd - 150, pageEnd + 150, 3);
+
+        assertThat(timeTable.getPageCount()).isEqualTo(2);
+        assertFalse(timeTable.isFree(pageEnd, pageEnd));
+        assertFalse(timeTable.isFree(pageEnd - 150, pageEnd - 150));
+
+        timeTable.remove(pageEnd - 150, pageEnd + 150, 3);
+
+        assertThat(timeTable.getPageCount()).isEqualTo(0);
+        assertThat(timeTable.size()).isEqualTo(0);
+    }
+
+    @Test
+    void findFreeWindows_ShouldReturnWindowsAfterOccupiedSlotRuns() {
+        timeTable.add(ORIGIN + 60, ORIGIN + 120, 1);
+        timeTable.add(ORIGIN + 180, ORIGIN + 240, 2);
+
+        assertThat(timeTable.findFreeWindows(ORIGIN, 30, 3)).containsExactly(ORIGIN, ORIGIN + 121, ORIGIN + 241);
+        assertThat(timeTable.findFreeWindows(ORIGIN, 60, 3)).containsExactly(ORIGIN + 241);
+    }
+
+    @Test
+    void getOccupiedMinutes_ShouldCountOccupiedSlotsInRange() {
+        long pageEnd = 15L * 4096 * 1000;
+        timeTable.add(pageEnd - 15 * 4096 * 2, pageEnd + 150, 1);
+
+        assertThat(timeTable.getOccupiedMinutes(pageEnd - 15 * 4096 * 3, pageEnd + 1000)).isEqualTo(15L * (4096 * 2 + 11));
+        assertThat(timeTable.getOccupiedMinutes(pageEnd, pageEnd + 30)).isEqualTo(30);
+        assertThat(timeTable.getOccupiedMinutes(pageEnd, pageEnd)).isEqualTo(0);
+    }
+
+    @Test
+    void addNewTask_WhenManagerUsesSlotTimeTableThenDeclineCrossingTask() {
+        InMemoryTaskManager taskManager = new InMemoryTaskManager(() -> timeTable);
+        LocalDateTime startTime = LocalDateTime.of(2026, 9, 29, 10, 0, 0);
+        Task task = new Task("Test Task", "This is a test task", 60, startTime);
+        taskManager.addNewTask(task);
+
+        Task task2 = new Task("Test Task2", "This is a test task2", 60 * 24, startTime.minusHours(2));
+        taskManager.addNewTask(task2);
+
+        assertTrue(taskManager.getTasks().containsKey(task.getId()));
+        assertFalse(taskManager.getTasks().containsValue(task2));
+    }
+}
@@ -16,7 +16,9 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -207,6 +209,116 @@ public class HttpTaskServerTest {
         assertThat(response.statusCode()).isEqualTo(204);
     }
 
+    @Test
+    public void handleAllTasksRequests_GivenRequestWithLimitWhenSendRequestThenReturnPageWithNextCursor() throws IOException, InterruptedException {
+        request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/tasks?limit=1"))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        JsonObject page = JsonParser.parseString(response.body()).getAsJsonObject();
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(page.getAsJsonArray("tasks")).hasSizeLessThanOrEqualTo(1);
+        if (!page.get("next").isJsonNull()) {
+            request = HttpRequest.newBuilder()
+                    .GET()
+                    .uri(URI.create("http://localhost:8080/tasks?limit=1&after=" + page.get("next").getAsString()))
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .build();
+            HttpResponse<String> nextResponse = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+            assertThat(nextResponse.statusCode()).isEqualTo(200);
+            assertThat(nextResponse.body()).doesNotContain(page.getAsJsonArray("tasks").toString());
+        }
+    }
+
+    @Test
+    public void handleAllTasksRequests_GivenRequestWithInvalidCursorWhenSendRequestThenReturnResponseCode400() throws IOException, InterruptedException {
+        request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/tasks?limit=1&after=yesterday"))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(400);
+    }
+
+    @Test
+    public void handleAllTasksRequests_GivenRequestWithEncodedCursorWhenSendRequestThenReturnResponseCode200() throws IOException, InterruptedException {
+        request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/tasks?limit=1&after=2023-09-29T10%3A00%3A00%2C1"))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(200);
+    }
+
+    @Test
+    public void handleAllTasksRequests_GivenRequestWithZeroLimitWhenSendRequestThenReturnResponseCode400() throws IOException, InterruptedException {
+        request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/tasks?limit=0"))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(400);
+    }
+
+    @Test
+    public void handleGetUpcoming_GivenRequestWithNowAndKWhenSendRequestThenReturnResponseCode200() throws IOException, InterruptedException {
+        request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/tasks/upcoming?now=2023-09-29T00:00:00&k=2"))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(JsonParser.parseString(response.body()).getAsJsonArray()).hasSizeLessThanOrEqualTo(2);
+    }
+
+    @Test
+    public void handleGetSubTasksByEpicId_GivenRequestWithExistEpicIdWhenSendRequestThenReturnResponseCode200() throws IOException, InterruptedException {
+        EpicTask epicTask = new EpicTask("Epic with subtasks", "Epic for subtasks view");
+        server.getHttpTaskManager().addNewEpicTask(epicTask);
+        server.getHttpTaskManager().addNewSubTask(new SubTask("SubTask of epic", "Subtask for view",
+                epicTask.getId()));
+        request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/tasks/subtask/epic?id=" + epicTask.getId()))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(JsonParser.parseString(response.body()).getAsJsonArray()).hasSize(1);
+    }
+
+    @Test
+    public void handleGetSubTasksByEpicId_GivenRequestWithNotExistEpicIdWhenSendRequestThenReturnResponseCode404() throws IOException, InterruptedException {
+        request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/tasks/subtask/epic?id=1000"))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(404);
+    }
+
     @Test
     public void handleHistoryRequests_GivenRequestGetHistoryWhenSendRequestThenReturnResponseCode200() throws IOException, InterruptedException {
         server.getHttpTaskManager().getById(5);
@@ -222,6 +334,98 @@ public class HttpTaskServerTest {
         assertThat(response.statusCode()).isEqualTo(200);
     }
 
+    @Test
+    public void handleHistoryRequests_GivenRequestWithLimitAndBeforeWhenSendRequestThenReturnPagesFromLastView() throws IOException, InterruptedException {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Task task = new Task("Viewed task" + i, "Task for history page");
+            server.getHttpTaskManager().addNewTask(task);
+            server.getHttpTaskManager().getById(task.getId());
+            ids.add(task.getId());
+        }
+        request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/tasks/history?limit=2"))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        JsonObject page = JsonParser.parseString(response.body()).getAsJsonObject();
+        assertThat(page.getAsJsonArray("tasks").get(0).getAsJsonObject().get("id").getAsLong()).isEqualTo(ids.get(2));
+        long next = page.get("next").getAsLong();
+        server.getHttpTaskManager().getById(ids.get(1));
+
+        request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/tasks/history?limit=2&before=" + next))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+
+        response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        page = JsonParser.parseString(response.body()).getAsJsonObject();
+        assertThat(page.getAsJsonArray("tasks")).hasSize(1);
+        assertThat(page.getAsJsonArray("tasks").get(0).getAsJsonObject().get("id").getAsLong()).isEqualTo(ids.get(0));
+        ids.forEach(server.getHttpTaskManager()::deleteByIdTask);
+    }
+
+    @Test
+    public void handleHistoryRequests_GivenUserHeaderWhenSendRequestThenReturnOnlyUserViews() throws IOException, InterruptedException {
+        Task task = new Task("Viewed by user", "Task for user history");
+        server.getHttpTaskManager().addNewTask(task);
+        request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/tasks/task/?id=" + task.getId()))
+                .header(HttpTaskServer.USER_HEADER, "alice")
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/tasks/history"))
+                .header(HttpTaskServer.USER_HEADER, "alice")
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        JsonArray history = JsonParser.parseString(response.body()).getAsJsonArray();
+        assertThat(history).hasSize(1);
+        assertThat(history.get(0).getAsJsonObject().get("id").getAsLong()).isEqualTo(task.getId());
+        assertThat(server.getUserHistory().getHistory("bob")).isEmpty();
+        server.getHttpTaskManager().deleteByIdTask(task.getId());
+    }
+
+    @Test
+    public void handleHistoryRequests_GivenRequestWithInvalidLimitWhenSendRequestThenReturnResponseCode400() throws IOException, InterruptedException {
+        request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/tasks/history?limit=-1"))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(400);
+    }
+
+    @Test
+    public void handleHistoryRequests_GivenRequestWithZeroLimitWhenSendRequestThenReturnResponseCode400() throws IOException, InterruptedException {
+        request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/tasks/history?limit=0"))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(400);
+    }
+
     @Test
     public void handleHistoryRequests_GivenGetRequestToEmptyHistoryWhenSendRequestThenReturnResponseCode204() throws IOException, InterruptedException {
         assertThat(server.getHttpTaskManager().historyManager.getHistory()).isEmpty();
@@ -237,6 +441,73 @@ public class HttpTaskServerTest {
         assertThat(response.statusCode()).isEqualTo(204);
     }
 
+    @Test
+    public void handleGetFreeSlots_GivenRequestWithDurationWhenSendRequestThenReturnResponseCode200() throws IOException, InterruptedException {
+        request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/tasks/slots?after=2023-09-29T10:00:00&duration=60&limit=3"))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.body()).contains("2023-");
+    }
+
+    @Test
+    public void handleGetFreeSlots_GivenRequestWithoutDurationWhenSendRequestThenReturnResponseCode400() throws IOException, InterruptedException {
+        request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/tasks/slots?after=2023-09-29T10:00:00"))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(400);
+    }
+
+    @Test
+    public void handleGetUtilization_GivenRequestWithRangeWhenSendRequestThenReturnResponseCode200() throws IOException, InterruptedException {
+        request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/tasks/utilization?from=2023-09-29T00:00:00&to=2023-10-01T00:00:00&bucket=day"))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.body()).contains("2023-09-29T00:00", "2023-09-30T00:00");
+    }
+
+    @Test
+    public void handleGetUtilization_GivenRequestWithUnknownBucketWhenSendRequestThenReturnResponseCode400() throws IOException, InterruptedException {
+        request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/tasks/utilization?from=2023-09-29T00:00:00&to=2023-10-01T00:00:00&bucket=lunch"))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(400);
+    }
+
+    @Test
+    public void handleGetUtilization_GivenRequestWithSecondBucketWhenSendRequestThenReturnResponseCode400() throws IOException, InterruptedException {
+        request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/tasks/utilization?from=2023-01-01T00:00:00&to=2024-01-01T00:00:00&bucket=second"))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(400);
+    }
+
     @Test
     public void handleGetTaskById_GivenRequestToGetExistTaskByIdWhenSendRequestThenReturnResponseCode200() throws IOException, InterruptedException {
         EpicTask epicTask = server.getHttpTaskManager().getEpicTasks().get(1L);
@@ -287,6 +558,25 @@ public class HttpTaskServerTest {
         assertThat(response.statusCode()).isEqualTo(201);
     }
 
+    @Test
+    public void handlePostTask_GivenTaskWithZeroRecurrenceIntervalWhenSendRequestThenReturnResponseCode400() throws IOException, InterruptedException {
+        Task newTask = new Task("New Task", "This is a NEW task", 15, startTime.plusHours(9));
+        JsonObject jsonTask = gson.toJsonTree(newTask).getAsJsonObject();
+        JsonObject recurrence = new JsonObject();
+        recurrence.addProperty("intervalDays", 0);
+        jsonTask.add("recurrence", recurrence);
+
+        request = HttpRequest.newBuilder()
+                .POST(HttpRequest.BodyPublishers.ofString(jsonTask.toString()))
+                .uri(URI.create("http://localhost:8080/tasks/task"))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(400);
+    }
+
     @Test
     public void handlePostTask_GivenRequestToPostNullBodyWhenSendRequestThenReturnResponseCode400() throws IOException, InterruptedException {
         request = HttpRequest.newBuilder()
@@ -319,6 +609,26 @@ public class HttpTaskServerTest {
         assertThat(response.statusCode()).isEqualTo(201);
     }
 
+    @Test
+    public void handlePostSubTask_GivenRecurringSubTaskWhenSendRequestThenReturnResponseCode400() throws IOException, InterruptedException {
+        SubTask newTask = new SubTask("New SubTask", "This is a NEW Subtask", 60, startTime.plusHours(14), 1);
+        JsonObject jsonTask = gson.toJsonTree(newTask).getAsJsonObject();
+        JsonObject recurrence = new JsonObject();
+        recurrence.addProperty("intervalDays", 1);
+        recurrence.addProperty("until", startTime.plusDays(7).format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        jsonTask.add("recurrence", recurrence);
+
+        request = HttpRequest.newBuilder()
+                .POST(HttpRequest.BodyPublishers.ofString(jsonTask.toString()))
+                .uri(URI.create("http://localhost:8080/tasks/subtask"))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(400);
+    }
+
     @Test
     public void handlePostSubTask_GivenRequestToPostNullBodyWhenSendRequestThenReturnResponseCode400() throws IOException, InterruptedException {
         request = HttpRequest.newBuilder()
@@ -351,6 +661,23 @@ public class HttpTaskServerTest {
         assertThat(response.statusCode()).isEqualTo(201);
     }
 
+    @Test
+    public void handlePostEpicTask_GivenUnknownParentEpicWhenSendRequestThenReturnResponseCode400() throws IOException, InterruptedException {
+        EpicTask newTask = new EpicTask("New EpicTask", "This is a NEW EpicTask");
+        newTask.setIdParentEpic(100_000);
+        String jsonTask = gson.toJson(newTask);
+
+        request = HttpRequest.newBuilder()
+                .POST(HttpRequest.BodyPublishers.ofString(jsonTask))
+                .uri(URI.create("http://localhost:8080/tasks/epic"))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(400);
+    }
+
     @Test
     public void handlePostEpicTask_GivenRequestToPostNullBodyWhenSendRequestThenReturnResponseCode400() throws IOException, InterruptedException {
         request = HttpRequest.newBuilder()
@@ -3,6 +3,7 @@ package utils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import task.EpicTask;
+import task.Recurrence;
 import task.SubTask;
 import task.Task;
 import task.TaskStatus;
@@ -95,4 +96,80 @@ public class CSVMapperTest {
         String result = CSVMapper.taskToString(epicTask);
         assertThat(result).isEqualTo("2,EPICTASK,EpicTask1,IN_PROGRESS,This is a epic task,0, ");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void taskToString_TaskToStringWhenTaskWithAssigneeThenReturnCSVStringWithBlankEpicColumn() {
+        task.setStartTime(null);
+        task.setAssignee("alice");
+        String result = CSVMapper.taskToString(task);
+        assertThat(result).isEqualTo("1,TASK,Task1,IN_PROGRESS,This is a task,60, , ,alice");
+    }
+
+    @Test
+    public void taskToString_SubTaskToStringWhenSubTaskWithAssigneeThenReturnCSVString() {
+        subTask.setStartTime(null);
+        subTask.setAssignee("bob");
+        String result = CSVMapper.taskToString(subTask);
+        assertThat(result).isEqualTo("3,SUBTASK,SubTask1,IN_PROGRESS,This is a subtask,30, ,2,bob");
+    }
+
+    @Test
+    public void fromString_WhenLineContainsAssigneeThenSetAssignee() {
+        Task result = CSVMapper.fromString("1,TASK,Task1,NEW,This is a task,60,2023-10-01T10:00, ,alice").get();
+
+        assertThat(result.getAssignee()).isEqualTo("alice");
+        assertThat(result.getStartTime()).isEqualTo(LocalDateTime.of(2023, 10, 1, 10, 0));
+    }
+
+    @Test
+    public void fromString_WhenLineWithoutAssigneeThenAssigneeIsNull() {
+        Task result = CSVMapper.fromString("3,SUBTASK,SubTask1,NEW,This is a subtask,30, ,2").get();
+
+        assertThat(result.getAssignee()).isNull();
+        assertThat(((SubTask) result).getIdEpicTask()).isEqualTo(2);
+    }
+
+    @Test
+    public void taskToString_EpicTaskToStringWhenEpicHasParentThenReturnCSVStringWithParentId() {
+        epicTask.setStartTime(null);
+        epicTask.setIdParentEpic(7);
+        String result = CSVMapper.taskToString(epicTask);
+        assertThat(result).isEqualTo("2,EPICTASK,EpicTask1,IN_PROGRESS,This is a epic task,30, ,7");
+    }
+
+    @Test
+    public void fromString_WhenEpicLineContainsParentThenSetParentEpic() {
+        EpicTask result = (EpicTask) CSVMapper.fromString("2,EPICTASK,EpicTask1,NEW,This is a epic task,0, ,7,bob").get();
+
+        assertThat(result.getIdParentEpic()).isEqualTo(7);
+        assertThat(result.getAssignee()).isEqualTo("bob");
+        assertThat(((EpicTask) CSVMapper.fromString("2,EPICTASK,EpicTask1,NEW,Epic,0, , ,bob").get())
+                .getIdParentEpic()).isZero();
+    }
+
+    @Test
+    public void taskToString_TaskToStringWhenTaskIsRecurringThenReturnCSVStringWithRecurrence() {
+        task.setStartTime(null);
+        task.setRecurrence(Recurrence.weekly(LocalDateTime.of(2024, 1, 1, 10, 0)));
+        String result = CSVMapper.taskToString(task);
+        assertThat(result).isEqualTo("1,TASK,Task1,IN_PROGRESS,This is a task,60, , , ,7/2024-01-01T10:00");
+    }
+
+    @Test
+    public void fromString_WhenLineWrittenByTaskToStringThenStartTimeRestored() {
+        task.setStartTime(LocalDateTime.of(2023, 9, 29, 10, 0));
+
+        Task result = CSVMapper.fromString(CSVMapper.taskToString(task)).get();
+
+        assertThat(result.getStartTime()).isEqualTo(LocalDateTime.of(2023, 9, 29, 10, 0));
+    }
+
+    @Test
+    public void fromString_WhenLineContainsRecurrenceThenSetRecurrence() {
+        Task result = CSVMapper.fromString("1,TASK,Task1,NEW,This is a task,60,2023-10-01T10:00, , ,1/2023-12-31T10:00")
+                .get();
+
+        assertThat(result.getAssignee()).isNull();
+        assertThat(result.getRecurrence()).isEqualTo(Recurrence.daily(LocalDateTime.of(2023, 12, 31, 10, 0)));
+    }
+}
@@ -0,0 +1,64 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongIntHashMapTest {
+
+    @Test
+    void put_ShouldReturnPreviousValueOrMissingValue() {
+        LongIntHashMap map = new LongIntHashMap();
+
+        assertEquals(-1, map.put(42L, 1, -1));
+        assertEquals(1, map.put(42L, 2, -1));
+        assertEquals(-1, map.put(Long.MIN_VALUE, 3, -1));
+
+        assertEquals(2, map.get(42L, -1));
+        assertEquals(3, map.get(Long.MIN_VALUE, -1));
+        assertEquals(-1, map.get(7L, -1));
+        assertThat(map.size()).isEqualTo(2);
+    }
+
+    @Test
+    void remove_ShouldKeepOtherKeysReachable() {
+        LongIntHashMap map = new LongIntHashMap();
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(17);
+
+        for (int i = 0; i < 20_000; i++) {
+            long key = random.nextInt(500);
+            if (random.nextBoolean()) {
+                assertEquals(expected.getOrDefault(key, -1), map.put(key, i, -1));
+                expected.put(key, i);
+            } else {
+                assertEquals(expected.getOrDefault(key, -1), map.remove(key, -1));
+                expected.remove(key);
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        for (long key = 0; key < 500; key++) {
+            assertEquals(expected.getOrDefault(key, -1), map.get(key, -1));
+        }
+    }
+
+    @Test
+    void clear_ShouldRemoveAllKeys() {
+        LongIntHashMap map = new LongIntHashMap(2);
+        map.put(1L, 1, -1);
+        map.put(2L, 2, -1);
+
+        map.clear();
+
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey(1L));
+    }
+}
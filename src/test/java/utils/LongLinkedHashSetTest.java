@@ -0,0 +1,91 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.PrimitiveIterator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongLinkedHashSetTest {
+
+    @Test
+    void add_ShouldKeepInsertionOrderAndIgnoreDuplicates() {
+        LongLinkedHashSet set = new LongLinkedHashSet();
+
+        assertTrue(set.add(42L));
+        assertTrue(set.add(-7L));
+        assertTrue(set.add(Long.MAX_VALUE));
+        assertFalse(set.add(42L));
+
+        assertThat(set).containsExactly(42L, -7L, Long.MAX_VALUE);
+        assertTrue(set.contains(-7L));
+        assertFalse(set.contains(8L));
+    }
+
+    @Test
+    void remove_ShouldUnlinkValueAndReuseItsEntry() {
+        LongLinkedHashSet set = new LongLinkedHashSet(List.of(1L, 2L, 3L, 4L));
+
+        assertTrue(set.remove(2L));
+        assertTrue(set.remove(4L));
+        assertFalse(set.remove(2L));
+        set.add(5L);
+        set.add(2L);
+
+        assertThat(set).containsExactly(1L, 3L, 5L, 2L);
+        assertThat(set).hasSize(4);
+    }
+
+    @Test
+    void add_ShouldGrowAndKeepOrderOfManyValues() {
+        LongLinkedHashSet set = new LongLinkedHashSet();
+        for (long value = 0; value < 10_000; value++) {
+            set.add(value * 1_000_003);
+        }
+        for (long value = 0; value < 10_000; value += 2) {
+            set.remove(value * 1_000_003);
+        }
+
+        assertThat(set).hasSize(5_000);
+        PrimitiveIterator.OfLong iterator = set.iterator();
+        for (long value = 1; value < 10_000; value += 2) {
+            assertThat(iterator.nextLong()).isEqualTo(value * 1_000_003);
+        }
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    void iterator_ShouldSupportRemoveAndFailOnConcurrentChange() {
+        LongLinkedHashSet set = new LongLinkedHashSet(List.of(1L, 2L, 3L));
+        Iterator<Long> iterator = set.iterator();
+        iterator.next();
+        iterator.remove();
+
+        assertThat(set).containsExactly(2L, 3L);
+
+        Iterator<Long> concurrent = set.iterator();
+        set.add(4L);
+        assertThrows(java.util.ConcurrentModificationException.class, concurrent::next);
+    }
+
+    @Test
+    void descendingIterator_ShouldWalkFromLastAddedValue() {
+        LongLinkedHashSet set = new LongLinkedHashSet(List.of(1L, 2L, 3L));
+        set.remove(2L);
+        set.add(4L);
+
+        PrimitiveIterator.OfLong iterator = set.descendingIterator();
+
+        assertThat(iterator.nextLong()).isEqualTo(4L);
+        assertThat(iterator.nextLong()).isEqualTo(3L);
+        assertThat(iterator.nextLong()).isEqualTo(1L);
+        assertFalse(iterator.hasNext());
+        assertThat(set.removeFirst()).isEqualTo(1L);
+        assertThat(set).containsExactly(3L, 4L);
+    }
+}